@@ -43,4 +43,18 @@ ALTER TABLE transactions
 ALTER TABLE transactions
   ADD CONSTRAINT fk_transactions_handler
     FOREIGN KEY (handler_id) REFERENCES admin(id)
-    ON DELETE SET NULL ON UPDATE CASCADE;
\ No newline at end of file
+    ON DELETE SET NULL ON UPDATE CASCADE;
+
+-- 索引由src/main/resources/db/migration下的迁移脚本在应用启动时创建，执行记录见schema_migration表
+
+-- 创建 idempotency_keys 表（出入库幂等键表，仅在warehouse.idempotency.persistent=true时使用）
+CREATE TABLE idempotency_keys (
+  idem_key VARCHAR(80) PRIMARY KEY COMMENT '幂等键，格式为用户ID:客户端幂等键',
+  item_id INT NOT NULL COMMENT '物品ID',
+  operation_type TINYINT NOT NULL COMMENT '操作类型，1代表入库，0代表出库',
+  quantity INT NOT NULL COMMENT '操作数量',
+  transaction_id INT DEFAULT NULL COMMENT '原始出入库记录ID',
+  post_stock INT DEFAULT NULL COMMENT '原始操作后库存',
+  created_at DATETIME NOT NULL COMMENT '创建时间',
+  KEY idx_idempotency_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
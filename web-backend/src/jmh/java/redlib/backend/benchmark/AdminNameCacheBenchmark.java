@@ -0,0 +1,66 @@
+package redlib.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.Assert;
+import redlib.backend.cache.AdminNameCache;
+import redlib.backend.dto.query.ItemQueryDTO;
+import redlib.backend.dto.query.TransactionQueryDTO;
+import redlib.backend.model.Page;
+import redlib.backend.service.ItemService;
+import redlib.backend.service.TransactionService;
+import redlib.backend.vo.ItemVO;
+import redlib.backend.vo.TransactionVO;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管理员姓名缓存基准测试：开启和关闭缓存时物品、出入库记录列表的查询耗时，
+ * 关闭缓存时每次查询列表都会用listByIds查询经手人姓名
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AdminNameCacheBenchmark {
+    @Param({"false", "true"})
+    public String adminNameCache;
+
+    private ConfigurableApplicationContext context;
+
+    private ItemService itemService;
+
+    private TransactionService transactionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Collections.singletonMap("warehouse.admin-name-cache.enabled", adminNameCache));
+        // 开关没有生效时两组测的是同一种实现，直接失败
+        Assert.state(context.getBean(AdminNameCache.class).isEnabled() == Boolean.parseBoolean(adminNameCache),
+                "管理员姓名缓存开关未生效");
+        BenchmarkContext.seed(context, 1000, 1000, 10_000);
+        itemService = context.getBean(ItemService.class);
+        transactionService = context.getBean(TransactionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<ItemVO> listItems() {
+        ItemQueryDTO queryDTO = new ItemQueryDTO();
+        queryDTO.setCurrent(1);
+        queryDTO.setPageSize(20);
+        return itemService.listByPage(queryDTO);
+    }
+
+    @Benchmark
+    public Page<TransactionVO> listTransactions() {
+        TransactionQueryDTO queryDTO = new TransactionQueryDTO();
+        queryDTO.setCurrent(1);
+        queryDTO.setPageSize(20);
+        return transactionService.listByPage(queryDTO);
+    }
+}
@@ -0,0 +1,121 @@
+package redlib.backend.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redlib.backend.WebBackendApplication;
+import redlib.backend.dao.ItemMapper;
+import redlib.backend.dao.TransactionMapper;
+import redlib.backend.model.Item;
+import redlib.backend.model.Token;
+import redlib.backend.model.Transaction;
+import redlib.backend.utils.ThreadContextHolder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 基准测试公共环境：以内嵌H2数据库（MySQL兼容模式）启动后端，
+ * 用data/warehouse.sql建表，并生成物品和出入库记录数据
+ */
+public class BenchmarkContext {
+    /**
+     * 基准测试使用的经手人，即jmh-schema.sql中插入的root用户
+     */
+    public static final int HANDLER_ID = 1;
+
+    /**
+     * 启动后端应用上下文
+     * 配置项以命令行参数传入：SpringApplicationBuilder.properties设置的只是默认值，
+     * 会被application.properties中的同名配置覆盖
+     *
+     * @param properties 额外的配置项，会覆盖application.properties和下面的默认配置
+     * @return 应用上下文
+     */
+    public static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        String schema = System.getProperty("warehouse.schema", "file:data/warehouse.sql");
+        Map<String, Object> map = new HashMap<>();
+        map.put("spring.datasource.url", "jdbc:h2:mem:" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        map.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        map.put("spring.datasource.username", "sa");
+        map.put("spring.datasource.password", "");
+        map.put("spring.sql.init.mode", "always");
+        map.put("spring.sql.init.schema-locations", "classpath:jmh-schema.sql," + schema);
+        map.put("logging.level.redlib", "warn");
+        map.putAll(properties);
+        String[] args = map.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(WebBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+    }
+
+    /**
+     * 生成物品和出入库记录
+     *
+     * @param context          应用上下文
+     * @param itemCount        物品数量
+     * @param stock            每个物品的初始库存
+     * @param transactionCount 出入库记录数量，平均分布在各物品上
+     * @return 物品ID数组
+     */
+    public static int[] seed(ConfigurableApplicationContext context, int itemCount, int stock, int transactionCount) {
+        ItemMapper itemMapper = context.getBean(ItemMapper.class);
+        TransactionMapper transactionMapper = context.getBean(TransactionMapper.class);
+        int[] itemIds = new int[itemCount];
+        Date now = new Date();
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item();
+            item.setName("物品" + i);
+            item.setItemNumber(String.format("BM%06d", i));
+            item.setUnit("个");
+            item.setSpecification("规格" + (i % 10));
+            item.setStockQuantity(stock);
+            item.setThreshold(10);
+            item.setCreatedAt(now);
+            item.setUpdatedAt(now);
+            item.setOperatorId(HANDLER_ID);
+            itemMapper.insert(item);
+            itemIds[i] = item.getId();
+        }
+
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < transactionCount; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setItemId(itemIds[i % itemCount]);
+            transaction.setOperationType(i % 2 == 0 ? "1" : "0");
+            transaction.setQuantity(1);
+            transaction.setHandlerId(HANDLER_ID);
+            transaction.setPostStock(stock);
+            transaction.setOperationTime(new Date(now.getTime() - i * 1000L));
+            batch.add(transaction);
+            if (batch.size() == 1000) {
+                transactionMapper.insertBatch(batch);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            transactionMapper.insertBatch(batch);
+        }
+
+        return itemIds;
+    }
+
+    /**
+     * 为当前线程设置访问令牌，出入库操作需要当前登录用户作为经手人
+     */
+    public static void login() {
+        Token token = new Token();
+        token.setUserId(HANDLER_ID);
+        token.setUserCode("root");
+        token.setUserName("系统管理员");
+        ThreadContextHolder.setToken(token);
+    }
+}
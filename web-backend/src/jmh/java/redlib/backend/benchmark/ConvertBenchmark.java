@@ -0,0 +1,66 @@
+package redlib.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import redlib.backend.model.Item;
+import redlib.backend.model.Transaction;
+import redlib.backend.service.utils.ItemUtils;
+import redlib.backend.service.utils.TransactionUtils;
+import redlib.backend.vo.ItemVO;
+import redlib.backend.vo.TransactionVO;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体对象转VO对象基准测试
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConvertBenchmark {
+    private Transaction transaction;
+
+    private Item item;
+
+    private Map<Integer, String> nameMap;
+
+    @Setup
+    public void setUp() {
+        item = new Item();
+        item.setId(1);
+        item.setName("鼠标");
+        item.setItemNumber("BM000001");
+        item.setUnit("个");
+        item.setSpecification("无线");
+        item.setStockQuantity(100);
+        item.setThreshold(10);
+        item.setCreatedAt(new Date());
+        item.setUpdatedAt(new Date());
+        item.setOperatorId(1);
+
+        transaction = new Transaction();
+        transaction.setId(1);
+        transaction.setItemId(1);
+        transaction.setOperationType("1");
+        transaction.setQuantity(5);
+        transaction.setHandlerId(1);
+        transaction.setRemark("benchmark");
+        transaction.setPostStock(105);
+        transaction.setOperationTime(new Date());
+
+        nameMap = new HashMap<>();
+        nameMap.put(1, "系统管理员");
+    }
+
+    @Benchmark
+    public TransactionVO transactionToVO() {
+        return TransactionUtils.convertToVO(transaction, item, nameMap);
+    }
+
+    @Benchmark
+    public ItemVO itemToVO() {
+        return ItemUtils.convertToVO(item, nameMap);
+    }
+}
@@ -0,0 +1,69 @@
+package redlib.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.Assert;
+import redlib.backend.dto.query.ItemQueryDTO;
+import redlib.backend.model.Page;
+import redlib.backend.service.ItemService;
+import redlib.backend.service.search.ItemSearchIndex;
+import redlib.backend.vo.ItemSearchVO;
+import redlib.backend.vo.ItemVO;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 物品全文索引基准测试：按名称过滤的分页查询和关键字搜索的耗时分布，
+ * index=false时关闭索引，分页查询使用like全表扫描作为对照
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ItemSearchBenchmark {
+    @Param({"100000", "1000000"})
+    public int itemCount;
+
+    @Param({"false", "true"})
+    public String index;
+
+    private ConfigurableApplicationContext context;
+
+    private ItemService itemService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Collections.singletonMap("warehouse.item-search.enabled", index));
+        BenchmarkContext.seed(context, itemCount, 1000, 0);
+        // 物品在应用启动后才生成，需要重建索引
+        context.getBean(ItemSearchIndex.class).rebuild();
+        // 开关没有生效时两组测的都是索引查询，直接失败
+        Assert.state(context.getBean(ItemSearchIndex.class).isReady() == Boolean.parseBoolean(index), "物品索引开关未生效");
+        itemService = context.getBean(ItemService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<ItemVO> listByName() {
+        ItemQueryDTO queryDTO = new ItemQueryDTO();
+        queryDTO.setCurrent(1);
+        queryDTO.setPageSize(20);
+        queryDTO.setName("品" + ThreadLocalRandom.current().nextInt(1000));
+        return itemService.listByPage(queryDTO);
+    }
+
+    @Benchmark
+    public List<ItemSearchVO> search() {
+        if (!"true".equals(index)) {
+            return Collections.emptyList();
+        }
+
+        return itemService.search("物品" + ThreadLocalRandom.current().nextInt(itemCount), 10);
+    }
+}
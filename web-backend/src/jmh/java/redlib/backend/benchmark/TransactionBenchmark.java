@@ -0,0 +1,82 @@
+package redlib.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import redlib.backend.dto.TransactionDTO;
+import redlib.backend.service.TransactionService;
+
+import java.util.Collections;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出入库热点路径基准测试
+ * 90%的操作落在10%的热点物品上；ledger参数对比直接写库和库存账本模式
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactionBenchmark {
+    private static final int ITEM_COUNT = 1000;
+
+    private static final int INITIAL_STOCK = 1_000_000_000;
+
+    @Param({"false", "true"})
+    public boolean ledger;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    private int[] itemIds;
+
+    private int hotCount;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final SplittableRandom random = new SplittableRandom();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            BenchmarkContext.login();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Collections.singletonMap("warehouse.ledger.enabled", ledger));
+        itemIds = BenchmarkContext.seed(context, ITEM_COUNT, INITIAL_STOCK, 0);
+        hotCount = ITEM_COUNT / 10;
+        transactionService = context.getBean(TransactionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Integer checkIn(ThreadState state) {
+        return transactionService.checkIn(nextOperation(state));
+    }
+
+    @Benchmark
+    public Integer checkOut(ThreadState state) {
+        return transactionService.checkOut(nextOperation(state));
+    }
+
+    private TransactionDTO nextOperation(ThreadState state) {
+        int itemId;
+        if (state.random.nextInt(10) < 9) {
+            itemId = itemIds[state.random.nextInt(hotCount)];
+        } else {
+            itemId = itemIds[hotCount + state.random.nextInt(ITEM_COUNT - hotCount)];
+        }
+
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setItemId(itemId);
+        transactionDTO.setQuantity(1);
+        transactionDTO.setRemark("benchmark");
+        return transactionDTO;
+    }
+}
@@ -0,0 +1,58 @@
+package redlib.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import redlib.backend.dto.query.TransactionQueryDTO;
+import redlib.backend.model.Page;
+import redlib.backend.service.TransactionService;
+import redlib.backend.vo.TransactionVO;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出入库记录分页查询基准测试
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactionListBenchmark {
+    @Param({"1", "500"})
+    public int current;
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionService transactionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Collections.emptyMap());
+        BenchmarkContext.seed(context, 1000, 1000, 100_000);
+        transactionService = context.getBean(TransactionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<TransactionVO> listByPage() {
+        TransactionQueryDTO queryDTO = new TransactionQueryDTO();
+        queryDTO.setCurrent(current);
+        queryDTO.setPageSize(pageSize);
+        return transactionService.listByPage(queryDTO);
+    }
+
+    @Benchmark
+    public Page<TransactionVO> listByPageWithFilter() {
+        TransactionQueryDTO queryDTO = new TransactionQueryDTO();
+        queryDTO.setCurrent(current);
+        queryDTO.setPageSize(pageSize);
+        queryDTO.setItemName("物品1");
+        return transactionService.listByPage(queryDTO);
+    }
+}
@@ -0,0 +1,103 @@
+package redlib.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import redlib.backend.utils.BeanAccessor;
+import redlib.backend.utils.XlsUtils;
+import redlib.backend.vo.ItemVO;
+
+import java.beans.PropertyDescriptor;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Excel导出基准测试：10万行物品数据逐个单元格取值的开销，以及完整的流式导出耗时
+ * readByPropertyDescriptor是原来每个单元格创建PropertyDescriptor并反射调用的方式，readByAccessor是预先生成的访问器。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class XlsExportBenchmark {
+    private static final int ROW_COUNT = 100_000;
+
+    private static final int PAGE_SIZE = 1000;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private List<ItemVO> rows;
+
+    private Map<String, String> fieldMap;
+
+    @Setup
+    public void setUp() {
+        rows = new ArrayList<>(ROW_COUNT);
+        for (int i = 1; i <= ROW_COUNT; i++) {
+            ItemVO vo = new ItemVO();
+            vo.setId(i);
+            vo.setName("物品" + i);
+            vo.setItemNumber(String.format("BM%06d", i));
+            vo.setUnit("个");
+            vo.setSpecification("规格" + (i % 100));
+            vo.setStockQuantity(i % 1000);
+            vo.setThreshold(10);
+            vo.setUpdatedAt(new Date());
+            vo.setOperatorName("系统管理员");
+            rows.add(vo);
+        }
+
+        fieldMap = new LinkedHashMap<>();
+        fieldMap.put("id", "物品ID");
+        fieldMap.put("name", "物品名称");
+        fieldMap.put("itemNumber", "物品编号");
+        fieldMap.put("unit", "单位");
+        fieldMap.put("specification", "规格");
+        fieldMap.put("stockQuantity", "库存数量");
+        fieldMap.put("threshold", "预警阈值");
+        fieldMap.put("updatedAt", "更新时间");
+        fieldMap.put("operatorName", "操作人");
+    }
+
+    @Benchmark
+    public void readByPropertyDescriptor(Blackhole blackhole) throws Exception {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        for (ItemVO vo : rows) {
+            for (String field : fieldMap.keySet()) {
+                Object value = new PropertyDescriptor(field, vo.getClass()).getReadMethod().invoke(vo);
+                blackhole.consume(value instanceof Date ? sdf.format(value) : value);
+            }
+        }
+    }
+
+    @Benchmark
+    public void readByAccessor(Blackhole blackhole) {
+        BeanAccessor<ItemVO> accessor = BeanAccessor.of(ItemVO.class);
+        BeanAccessor.Property[] columns = fieldMap.keySet().stream()
+                .map(accessor::property)
+                .toArray(BeanAccessor.Property[]::new);
+        for (ItemVO vo : rows) {
+            for (BeanAccessor.Property column : columns) {
+                Object value = column.get(vo);
+                blackhole.consume(value instanceof Date date ? DATE_FORMATTER.format(date.toInstant()) : value);
+            }
+        }
+    }
+
+    @Benchmark
+    public void exportToExcel() {
+        XlsUtils.exportToExcel(OutputStream.nullOutputStream(), page -> {
+            int from = (page - 1) * PAGE_SIZE;
+            return from >= rows.size() ? null : rows.subList(from, Math.min(from + PAGE_SIZE, rows.size()));
+        }, fieldMap);
+    }
+}
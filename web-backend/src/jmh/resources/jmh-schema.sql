@@ -0,0 +1,19 @@
+-- 基准测试用的内嵌数据库前置表，items/transactions 表由 data/warehouse.sql 创建
+CREATE TABLE admin (
+  id INT AUTO_INCREMENT PRIMARY KEY,
+  user_code VARCHAR(40) NOT NULL,
+  name VARCHAR(32) DEFAULT NULL,
+  sex TINYINT DEFAULT 1,
+  enabled TINYINT DEFAULT 1,
+  password VARCHAR(41) DEFAULT NULL,
+  department VARCHAR(128) DEFAULT NULL,
+  phone VARCHAR(32) DEFAULT NULL,
+  email VARCHAR(128) DEFAULT NULL,
+  created_by INT DEFAULT NULL,
+  updated_by INT DEFAULT NULL,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY uk (user_code)
+);
+
+INSERT INTO admin (user_code, name) VALUES ('root', '系统管理员');
@@ -0,0 +1,314 @@
+package redlib.backend.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redlib.backend.dao.AdminMapper;
+import redlib.backend.model.Admin;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 管理员姓名缓存
+ * 启动时加载全部管理员的ID和姓名，以ID为下标存入数组，查询时不访问数据库；
+ * 管理员新增、修改、删除时逐条更新，在事务中更新时等提交后才生效。
+ * 每次更新复制出新的数组再整体替换，读取方拿到的快照不会再变化，可以直接作为不可变的Map返回。
+ * 表中查不到的ID（例如已删除的管理员）也会记住，避免每次都查询数据库。
+ * 补充加载期间管理员有变更时，加载结果只返回给本次调用，不写入缓存，避免把已删除的管理员写回去。
+ */
+@Component
+@Slf4j
+public class AdminNameCache {
+    /**
+     * 超过该值的ID不放入数组，单独用Map保存
+     */
+    private static final int MAX_DENSE_ID = 1 << 16;
+
+    @Value("${warehouse.admin-name-cache.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private AdminMapper adminMapper;
+
+    private final Set<Integer> absentIds = ConcurrentHashMap.newKeySet();
+
+    private volatile NameMap snapshot = new NameMap(new String[0], Map.of());
+
+    /**
+     * 变更版本号，管理员新增、修改、删除和重新加载时加1
+     */
+    private volatile long version;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        reload();
+        log.info("管理员姓名缓存已加载，管理员数: {}", snapshot.size());
+    }
+
+    /**
+     * 是否开启了管理员姓名缓存
+     *
+     * @return true表示开启
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 获取管理员ID到姓名的映射，缓存中没有的ID用一条查询补充加载
+     *
+     * @param adminIds 管理员ID集合
+     * @return 不可变的ID到姓名映射，包含缓存中全部管理员
+     */
+    public Map<Integer, String> getNameMap(Collection<Integer> adminIds) {
+        NameMap current = snapshot;
+        List<Integer> missing = null;
+        for (Integer id : adminIds) {
+            if (id != null && current.get(id) == null && !absentIds.contains(id)) {
+                if (missing == null) {
+                    missing = new ArrayList<>();
+                }
+                missing.add(id);
+            }
+        }
+
+        if (missing == null) {
+            return current;
+        }
+
+        long loadVersion = version;
+        Map<Integer, String> loaded = new HashMap<>();
+        for (Admin admin : adminMapper.listByIds(missing)) {
+            loaded.put(admin.getId(), admin.getName());
+        }
+        List<Integer> absent = new ArrayList<>();
+        for (Integer id : missing) {
+            if (!loaded.containsKey(id)) {
+                absent.add(id);
+            }
+        }
+
+        NameMap updated = merge(loaded, absent, loadVersion);
+        if (updated != null) {
+            return updated;
+        }
+
+        Map<Integer, String> result = new HashMap<>(snapshot);
+        result.putAll(loaded);
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 管理员新增或姓名变更
+     *
+     * @param id   管理员ID
+     * @param name 姓名
+     */
+    public void put(Integer id, String name) {
+        Map<Integer, String> changes = new HashMap<>();
+        changes.put(id, name);
+        afterCommit(() -> change(changes, List.of()));
+    }
+
+    /**
+     * 管理员被删除
+     *
+     * @param ids 管理员ID列表
+     */
+    public void remove(Collection<Integer> ids) {
+        List<Integer> idList = new ArrayList<>(ids);
+        afterCommit(() -> change(Map.of(), idList));
+    }
+
+    /**
+     * 从数据库重新加载全部管理员
+     */
+    public synchronized void reload() {
+        Map<Integer, String> sparse = new HashMap<>();
+        List<Admin> admins = adminMapper.listNames();
+        int maxId = admins.stream()
+                .mapToInt(Admin::getId)
+                .filter(id -> id < MAX_DENSE_ID)
+                .max()
+                .orElse(-1);
+        String[] names = new String[maxId + 1];
+        for (Admin admin : admins) {
+            if (admin.getId() < MAX_DENSE_ID) {
+                names[admin.getId()] = admin.getName();
+            } else {
+                sparse.put(admin.getId(), admin.getName());
+            }
+        }
+
+        absentIds.clear();
+        snapshot = new NameMap(names, Map.copyOf(sparse));
+        version++;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private synchronized NameMap change(Map<Integer, String> changes, List<Integer> removed) {
+        version++;
+        return apply(changes, removed);
+    }
+
+    /**
+     * 把补充加载的结果写入缓存
+     *
+     * @return 新的快照，加载开始后管理员有变更时返回null，不写入
+     */
+    private synchronized NameMap merge(Map<Integer, String> loaded, List<Integer> absent, long loadVersion) {
+        if (version != loadVersion) {
+            return null;
+        }
+
+        absentIds.addAll(absent);
+        return loaded.isEmpty() ? snapshot : apply(loaded, List.of());
+    }
+
+    private synchronized NameMap apply(Map<Integer, String> changes, List<Integer> removed) {
+        NameMap current = snapshot;
+        int length = current.names.length;
+        for (Integer id : changes.keySet()) {
+            if (id >= 0 && id < MAX_DENSE_ID) {
+                length = Math.max(length, id + 1);
+            }
+        }
+
+        String[] names = Arrays.copyOf(current.names, length);
+        Map<Integer, String> sparse = new HashMap<>(current.sparse);
+        changes.forEach((id, name) -> {
+            absentIds.remove(id);
+            if (id >= 0 && id < MAX_DENSE_ID) {
+                names[id] = name;
+            } else {
+                sparse.put(id, name);
+            }
+        });
+        for (Integer id : removed) {
+            if (id >= 0 && id < names.length) {
+                names[id] = null;
+            } else {
+                sparse.remove(id);
+            }
+        }
+
+        snapshot = new NameMap(names, Map.copyOf(sparse));
+        return snapshot;
+    }
+
+    /**
+     * 以ID为下标的不可变姓名映射，查询时不需要装箱和计算哈希
+     */
+    private static class NameMap extends AbstractMap<Integer, String> {
+        private final String[] names;
+
+        private final Map<Integer, String> sparse;
+
+        private final int size;
+
+        NameMap(String[] names, Map<Integer, String> sparse) {
+            this.names = names;
+            this.sparse = sparse;
+            this.size = (int) Arrays.stream(names).filter(name -> name != null).count() + sparse.size();
+        }
+
+        @Override
+        public String get(Object key) {
+            if (!(key instanceof Integer)) {
+                return null;
+            }
+
+            int id = (Integer) key;
+            if (id >= 0 && id < names.length) {
+                return names[id];
+            }
+            return sparse.get(id);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<Integer, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, String>> iterator() {
+                    Iterator<Entry<Integer, String>> sparseIterator = sparse.entrySet().iterator();
+                    return new Iterator<>() {
+                        private int next = advance(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < names.length || sparseIterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Integer, String> next() {
+                            if (next < names.length) {
+                                Entry<Integer, String> entry = new SimpleImmutableEntry<>(next, names[next]);
+                                next = advance(next + 1);
+                                return entry;
+                            }
+                            if (!sparseIterator.hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            return sparseIterator.next();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        private int advance(int from) {
+            int index = from;
+            while (index < names.length && names[index] == null) {
+                index++;
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package redlib.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redlib.backend.dao.ItemMapper;
+import redlib.backend.model.Item;
+import redlib.backend.vo.CacheStatsVO;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 物品缓存
+ * 按ID缓存物品，另按物品编号缓存编号到ID的映射，按容量和有效期淘汰。
+ * 同一物品并发未命中时只有一个线程从数据库加载，其他线程等待加载结果。
+ * 物品信息或库存变更时按ID精确失效；在事务中失效时提交后会再失效一次，避免提交前读到的旧数据被放回缓存。
+ * 由其他线程在自己的事务中提交的变更（合并提交、热点合并、库存账本写回）没有调用方的事务同步，
+ * 由提交的一方在提交成功后再调用一次失效，不能只在提交前失效。
+ * 缓存中的物品对象是共享的，调用方不能修改。
+ */
+@Component
+public class ItemCache {
+    /**
+     * 最多缓存的物品数量
+     */
+    @Value("${warehouse.item-cache.max-size:10000}")
+    private long maxSize;
+
+    /**
+     * 缓存有效期（秒）
+     */
+    @Value("${warehouse.item-cache.ttl:300}")
+    private long ttl;
+
+    @Autowired
+    private ItemMapper itemMapper;
+
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private Cache<Integer, Item> idCache;
+
+    private Cache<String, Integer> numberCache;
+
+    @PostConstruct
+    public void init() {
+        idCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .recordStats()
+                .build();
+        numberCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .build();
+    }
+
+    /**
+     * 根据ID获取物品
+     *
+     * @param id 物品ID
+     * @return 物品，不存在时返回null
+     */
+    public Item getById(Integer id) {
+        return idCache.get(id, itemMapper::selectByPrimaryKey);
+    }
+
+    /**
+     * 根据物品编号获取物品
+     *
+     * @param itemNumber 物品编号
+     * @return 物品，不存在时返回null
+     */
+    public Item getByItemNumber(String itemNumber) {
+        Integer id = numberCache.get(itemNumber, key -> {
+            Item item = itemMapper.getByItemNumber(key);
+            if (item == null) {
+                return null;
+            }
+
+            idCache.put(item.getId(), item);
+            return item.getId();
+        });
+        if (id == null) {
+            return null;
+        }
+
+        Item item = getById(id);
+        if (item == null || !Objects.equals(item.getItemNumber(), itemNumber)) {
+            // 编号已被修改或物品已被删除，映射过期
+            numberCache.invalidate(itemNumber);
+            return item == null ? null : getByItemNumber(itemNumber);
+        }
+
+        return item;
+    }
+
+    /**
+     * 根据ID列表批量获取物品，未命中的物品用一条查询加载
+     *
+     * @param ids ID列表
+     * @return ID到物品的映射，不存在的物品不包含在内
+     */
+    public Map<Integer, Item> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        return new HashMap<>(idCache.getAll(ids, missing -> {
+            Map<Integer, Item> loaded = new HashMap<>();
+            for (Item item : itemMapper.listByIds(new ArrayList<>(missing))) {
+                loaded.put(item.getId(), item);
+            }
+            return loaded;
+        }));
+    }
+
+    /**
+     * 物品信息或库存发生变更，使其缓存失效
+     *
+     * @param id 物品ID
+     */
+    public void invalidate(Integer id) {
+        invalidateAll(List.of(id));
+    }
+
+    /**
+     * 一批物品发生变更，使其缓存失效
+     * 在事务中调用时提交后自动再失效一次；不在事务中调用时只失效一次，调用方应在变更提交后调用
+     *
+     * @param ids 物品ID列表
+     */
+    public void invalidateAll(Collection<Integer> ids) {
+        idCache.invalidateAll(ids);
+        invalidationCount.addAndGet(ids.size());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Integer> idList = new ArrayList<>(ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    idCache.invalidateAll(idList);
+                }
+            });
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 统计信息
+     */
+    public CacheStatsVO getStats() {
+        CacheStats stats = idCache.stats();
+        CacheStatsVO vo = new CacheStatsVO();
+        vo.setSize(idCache.estimatedSize());
+        vo.setHitCount(stats.hitCount());
+        vo.setMissCount(stats.missCount());
+        vo.setHitRate(stats.hitRate());
+        vo.setLoadCount(stats.loadCount());
+        vo.setEvictionCount(stats.evictionCount());
+        vo.setInvalidationCount(invalidationCount.get());
+        return vo;
+    }
+}
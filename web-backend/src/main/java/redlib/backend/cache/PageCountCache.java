@@ -0,0 +1,204 @@
+package redlib.backend.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redlib.backend.dao.TableStatsMapper;
+import redlib.backend.dto.query.PageQueryDTO;
+import redlib.backend.model.CountMode;
+import redlib.backend.model.Page;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 分页查询总记录数缓存
+ * 按区域（通常是一张表）和规范化后的查询条件缓存count(*)的结果，
+ * 区域内的数据发生变更时整个区域失效，另有有效期兜底。
+ */
+@Component
+@Slf4j
+public class PageCountCache {
+    public static final String ITEM = "item";
+
+    public static final String TRANSACTION = "transaction";
+
+    public static final String DEPARTMENT = "department";
+
+    public static final String LOGIN_LOG = "loginLog";
+
+    /**
+     * 不参与缓存键的查询字段，它们不影响总记录数
+     */
+    private static final Set<String> IGNORED_FIELDS = Set.of("orderBy", "cursor");
+
+    /**
+     * 缓存有效期（秒）
+     */
+    @Value("${warehouse.page-count.ttl:60}")
+    private long ttl;
+
+    /**
+     * 每个区域最多缓存的查询条件数量，超过时清空该区域
+     */
+    @Value("${warehouse.page-count.max-entries:1000}")
+    private int maxEntries;
+
+    /**
+     * 估算行数低于该值时仍使用精确统计
+     */
+    @Value("${warehouse.page-count.estimate-threshold:100000}")
+    private long estimateThreshold;
+
+    @Autowired
+    private TableStatsMapper tableStatsMapper;
+
+    private final Map<String, Region> regionMap = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, List<Field>> fieldMap = new ConcurrentHashMap<>();
+
+    /**
+     * 按统计方式获取总记录数
+     *
+     * @param region    缓存区域
+     * @param table     估算行数使用的表名
+     * @param queryDTO  查询条件，需要已经规范化（如模糊查询词已经加上%）
+     * @param countMode 统计方式
+     * @param counter   执行count(*)的查询
+     * @return 总记录数，统计方式为NONE时返回null
+     */
+    public <Q> Integer count(String region, String table, Q queryDTO, String countMode, Function<Q, Integer> counter) {
+        CountMode mode = CountMode.of(countMode);
+        if (mode == CountMode.NONE) {
+            return null;
+        }
+
+        if (mode == CountMode.EXACT) {
+            return counter.apply(queryDTO);
+        }
+
+        List<Object> values = filterValues(queryDTO);
+        if (mode == CountMode.ESTIMATED && values.stream().allMatch(value -> value == null)) {
+            Long rows = tableStatsMapper.estimateRows(table);
+            if (rows != null && rows >= estimateThreshold) {
+                return (int) Math.min(rows, Integer.MAX_VALUE);
+            }
+        }
+
+        return cached(region, values.toString(), () -> counter.apply(queryDTO));
+    }
+
+    /**
+     * 区域内的数据发生变更，使该区域的缓存失效。在事务中调用时提交后会再失效一次，
+     * 避免事务提交前其他线程读到旧数据又放回缓存
+     *
+     * @param region 缓存区域
+     */
+    public void invalidate(String region) {
+        Region cache = regionMap.computeIfAbsent(region, name -> new Region());
+        cache.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.clear();
+                }
+            });
+        }
+    }
+
+    private Integer cached(String region, String key, Supplier<Integer> counter) {
+        Region cache = regionMap.computeIfAbsent(region, name -> new Region());
+        long now = System.currentTimeMillis();
+        Entry entry = cache.entryMap.get(key);
+        if (entry != null && entry.expireAt > now) {
+            return entry.count;
+        }
+
+        // 统计期间区域失效过，结果可能是旧的，不放入缓存
+        long version = cache.version.get();
+        Integer count = counter.get();
+        if (cache.version.get() == version) {
+            if (cache.entryMap.size() >= maxEntries) {
+                cache.entryMap.clear();
+            }
+            cache.entryMap.put(key, new Entry(count, now + TimeUnit.SECONDS.toMillis(ttl)));
+        }
+
+        return count;
+    }
+
+    /**
+     * 取出查询条件中影响总记录数的字段值，即分页基类以外的字段
+     */
+    private List<Object> filterValues(Object queryDTO) {
+        List<Field> fields = fieldMap.computeIfAbsent(queryDTO.getClass(), this::filterFields);
+        List<Object> values = new ArrayList<>(fields.size());
+        try {
+            for (Field field : fields) {
+                values.add(field.get(queryDTO));
+            }
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException("读取查询条件失败", ex);
+        }
+
+        return values;
+    }
+
+    private List<Field> filterFields(Class<?> clazz) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> type = clazz; type != null && type != Page.class && type != PageQueryDTO.class && type != Object.class;
+             type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || IGNORED_FIELDS.contains(field.getName())) {
+                    continue;
+                }
+
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+
+        return fields;
+    }
+
+    /**
+     * 一个缓存区域
+     */
+    private static class Region {
+        private final Map<String, Entry> entryMap = new ConcurrentHashMap<>();
+
+        private final AtomicLong version = new AtomicLong();
+
+        void clear() {
+            version.incrementAndGet();
+            entryMap.clear();
+        }
+    }
+
+    /**
+     * 缓存的总记录数
+     */
+    private static class Entry {
+        private final int count;
+
+        private final long expireAt;
+
+        Entry(int count, long expireAt) {
+            this.count = count;
+            this.expireAt = expireAt;
+        }
+    }
+}
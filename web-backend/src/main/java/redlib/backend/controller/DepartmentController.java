@@ -1,7 +1,6 @@
 package redlib.backend.controller;
 
 import jakarta.servlet.http.HttpServletResponse;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -11,7 +10,11 @@ import redlib.backend.dto.DepartmentDTO;
 import redlib.backend.dto.query.DepartmentQueryDTO;
 import redlib.backend.model.Page;
 import redlib.backend.service.DepartmentService;
+import redlib.backend.service.export.ExportJobManager;
+import redlib.backend.service.export.ExportProgress;
+import redlib.backend.utils.XlsUtils;
 import redlib.backend.vo.DepartmentVO;
+import redlib.backend.vo.ExportJobVO;
 
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
@@ -33,6 +36,9 @@ public class DepartmentController {
     @Autowired
     private DepartmentService departmentService;
 
+    @Autowired
+    private ExportJobManager exportJobManager;
+
     @PostMapping("listDepartment")
     @Privilege("page")
     public Page<DepartmentVO> listDepartment(@RequestBody DepartmentQueryDTO queryDTO) {
@@ -66,14 +72,25 @@ public class DepartmentController {
     @PostMapping("exportDepartment")
     @Privilege("page")
     public void exportDepartment(@RequestBody DepartmentQueryDTO queryDTO, HttpServletResponse response) throws Exception {
-        Workbook workbook = departmentService.export(queryDTO);
-        response.setContentType("application/vnd.ms-excel");
+        response.setContentType(XlsUtils.XLSX_CONTENT_TYPE);
         SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd$HHmmss");
-        response.addHeader("Content-Disposition", "attachment;filename=file" + sdf.format(new Date()) + ".xls");
+        response.addHeader("Content-Disposition", "attachment;filename=file" + sdf.format(new Date()) + ".xlsx");
         OutputStream os = response.getOutputStream();
-        workbook.write(os);
+        departmentService.export(queryDTO, os, ExportProgress.NONE);
         os.close();
-        workbook.close();
+    }
+
+    /**
+     * 提交异步导出任务，在后台生成Excel文件，通过/api/export查询进度和下载
+     *
+     * @param queryDTO 查询条件
+     * @return 导出任务
+     */
+    @PostMapping("submitExport")
+    @Privilege("page")
+    public ExportJobVO submitExport(@RequestBody DepartmentQueryDTO queryDTO) {
+        return exportJobManager.submit("department", XlsUtils.EXCEL_TYPE_XLSX, XlsUtils.XLSX_CONTENT_TYPE,
+                (outputStream, progress) -> departmentService.export(queryDTO, outputStream, progress));
     }
 
     @PostMapping("importDepartment")
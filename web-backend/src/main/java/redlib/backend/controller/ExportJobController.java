@@ -0,0 +1,136 @@
+package redlib.backend.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import redlib.backend.annotation.Privilege;
+import redlib.backend.service.export.ExportJob;
+import redlib.backend.service.export.ExportJobManager;
+import redlib.backend.vo.ExportJobVO;
+
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 异步导出任务的进度查询和结果下载，各模块通过自己的submitExport接口提交任务，
+ * 只能访问自己提交的任务
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportJobController {
+    @Autowired
+    private ExportJobManager exportJobManager;
+
+    /**
+     * 查询导出任务的状态和进度
+     *
+     * @param id 任务ID
+     * @return 导出任务
+     */
+    @GetMapping("status")
+    @Privilege
+    public ExportJobVO status(String id) {
+        return exportJobManager.get(id);
+    }
+
+    /**
+     * 查询当前用户未过期的导出任务
+     *
+     * @return 导出任务列表，按提交时间倒序
+     */
+    @GetMapping("list")
+    @Privilege
+    public List<ExportJobVO> list() {
+        return exportJobManager.list();
+    }
+
+    /**
+     * 下载导出结果，支持单个Range请求，用于断点续传
+     *
+     * @param id       任务ID
+     * @param range    Range请求头，如bytes=1024-
+     * @param response HTTP响应
+     * @throws Exception IO异常
+     */
+    @GetMapping("download")
+    @Privilege
+    public void download(String id, @RequestHeader(value = "Range", required = false) String range,
+                         HttpServletResponse response) throws Exception {
+        ExportJob job = exportJobManager.getResult(id);
+        long size = job.getSize();
+        long start = 0;
+        long end = size - 1;
+        response.setHeader("Accept-Ranges", "bytes");
+        if (range != null) {
+            long[] bounds = parseRange(range, size);
+            if (bounds != null && bounds.length == 0) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader("Content-Range", "bytes */" + size);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        response.setContentType(job.getContentType());
+        response.addHeader("Content-Disposition", "attachment;filename=" + job.getFileName());
+        response.setContentLengthLong(end - start + 1);
+        OutputStream os = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(job.getFile(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(os);
+            long position = start;
+            while (position <= end) {
+                long count = channel.transferTo(position, end - position + 1, target);
+                if (count <= 0) {
+                    break;
+                }
+                position += count;
+            }
+        }
+        os.close();
+    }
+
+    /**
+     * 解析Range请求头，只支持单个区间
+     *
+     * @return 起止位置；空数组表示区间超出文件大小；null表示格式不支持，按完整文件返回
+     */
+    private static long[] parseRange(String range, long size) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // bytes=-500表示最后500个字节
+                long suffix = Long.parseLong(last);
+                return suffix <= 0 || size == 0 ? new long[0] : new long[]{Math.max(size - suffix, 0), size - 1};
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start >= size) {
+                return new long[0];
+            }
+            return start <= end ? new long[]{start, end} : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
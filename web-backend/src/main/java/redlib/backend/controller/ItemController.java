@@ -1,16 +1,26 @@
 package redlib.backend.controller;
 
 import jakarta.servlet.http.HttpServletResponse;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import redlib.backend.annotation.BackendModule;
 import redlib.backend.annotation.Privilege;
 import redlib.backend.annotation.NeedNoPrivilege;
+import redlib.backend.cache.ItemCache;
 import redlib.backend.dto.ItemDTO;
 import redlib.backend.dto.query.ItemQueryDTO;
 import redlib.backend.model.Page;
 import redlib.backend.service.ItemService;
+import redlib.backend.service.export.ExportJobManager;
+import redlib.backend.service.export.ExportProgress;
+import redlib.backend.utils.RowWriter;
+import redlib.backend.utils.XlsUtils;
+import redlib.backend.vo.ExportJobVO;
+import redlib.backend.vo.CacheStatsVO;
+import redlib.backend.vo.ItemImportResultVO;
+import redlib.backend.vo.ItemSearchVO;
+import redlib.backend.vo.ItemSuggestVO;
 import redlib.backend.vo.ItemVO;
 
 import java.io.OutputStream;
@@ -28,6 +38,12 @@ public class ItemController {
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private ExportJobManager exportJobManager;
+
     /**
      * 分页查询物品
      *
@@ -40,6 +56,45 @@ public class ItemController {
         return itemService.listByPage(queryDTO);
     }
 
+    /**
+     * 按关键字搜索物品，结果按相关度排序并标出命中部分
+     *
+     * @param keyword 关键字，匹配名称和编号
+     * @param limit   最多返回的数量，默认10
+     * @return 搜索结果
+     */
+    @GetMapping("search")
+    @Privilege
+    public List<ItemSearchVO> search(String keyword, Integer limit) {
+        return itemService.search(keyword, limit);
+    }
+
+    /**
+     * 按拼音全拼或首字母搜索物品名称，如输入shubiao或sb查找鼠标
+     *
+     * @param keyword 拼音
+     * @param limit   最多返回的数量，默认10
+     * @return 搜索结果
+     */
+    @GetMapping("pinyinSearch")
+    @Privilege
+    public List<ItemSearchVO> pinyinSearch(String keyword, Integer limit) {
+        return itemService.pinyinSearch(keyword, limit);
+    }
+
+    /**
+     * 输入联想：查询编号或名称以指定前缀开头的物品，供出入库表单每次按键时调用
+     *
+     * @param prefix 前缀，不区分大小写
+     * @param limit  最多返回的数量，默认10
+     * @return 联想结果，包含当前库存
+     */
+    @GetMapping("suggest")
+    @Privilege
+    public List<ItemSuggestVO> suggest(String prefix, Integer limit) {
+        return itemService.suggest(prefix, limit);
+    }
+
     /**
      * 添加物品
      *
@@ -52,6 +107,19 @@ public class ItemController {
         return itemService.addItem(itemDTO);
     }
 
+    /**
+     * 从Excel或CSV文件批量导入物品，列标题与导出文件相同，库存数量等列会被忽略
+     *
+     * @param file 上传的文件，支持xls、xlsx和csv
+     * @return 导入结果，包含失败的行和原因
+     * @throws Exception 文件读取异常
+     */
+    @PostMapping("importItem")
+    @Privilege("add")
+    public ItemImportResultVO importItem(@RequestParam("file") MultipartFile file) throws Exception {
+        return itemService.importItem(file.getInputStream(), file.getOriginalFilename());
+    }
+
     /**
      * 更新物品信息
      *
@@ -97,13 +165,55 @@ public class ItemController {
     @PostMapping("exportItem")
     @Privilege("page")
     public void exportItem(@RequestBody ItemQueryDTO queryDTO, HttpServletResponse response) throws Exception {
-        Workbook workbook = itemService.export(queryDTO);
-        response.setContentType("application/vnd.ms-excel");
+        response.setContentType(XlsUtils.XLSX_CONTENT_TYPE);
         SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd$HHmmss");
-        response.addHeader("Content-Disposition", "attachment;filename=file" + sdf.format(new Date()) + ".xls");
+        response.addHeader("Content-Disposition", "attachment;filename=file" + sdf.format(new Date()) + ".xlsx");
         OutputStream os = response.getOutputStream();
-        workbook.write(os);
+        itemService.export(queryDTO, os, ExportProgress.NONE);
         os.close();
-        workbook.close();
     }
-} 
\ No newline at end of file
+
+    /**
+     * 提交异步导出任务，在后台生成Excel文件，通过/api/export查询进度和下载
+     *
+     * @param queryDTO 查询条件
+     * @return 导出任务
+     */
+    @PostMapping("submitExport")
+    @Privilege("page")
+    public ExportJobVO submitExport(@RequestBody ItemQueryDTO queryDTO) {
+        return exportJobManager.submit("item", XlsUtils.EXCEL_TYPE_XLSX, XlsUtils.XLSX_CONTENT_TYPE,
+                (outputStream, progress) -> itemService.export(queryDTO, outputStream, progress));
+    }
+
+    /**
+     * 以CSV或NDJSON格式流式导出物品，边查询边以分块传输发送，适合大批量数据
+     *
+     * @param queryDTO 查询条件，与分页查询相同，通过URL参数传入
+     * @param format   导出格式，csv或ndjson
+     * @param response HTTP响应
+     * @throws Exception IO异常
+     */
+    @GetMapping("exportStream")
+    @Privilege("page")
+    public void exportStream(ItemQueryDTO queryDTO, @RequestParam(defaultValue = RowWriter.FORMAT_CSV) String format,
+                             HttpServletResponse response) throws Exception {
+        response.setContentType(RowWriter.contentType(format));
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd$HHmmss");
+        response.addHeader("Content-Disposition", "attachment;filename=item" + sdf.format(new Date()) + "." + format.toLowerCase());
+        // 禁止反向代理缓冲整个响应
+        response.addHeader("X-Accel-Buffering", "no");
+        itemService.exportText(queryDTO, format, response.getOutputStream());
+    }
+
+    /**
+     * 获取物品缓存的统计信息，包括命中、未命中和淘汰次数
+     *
+     * @return 统计信息
+     */
+    @GetMapping("cacheStats")
+    @Privilege("page")
+    public CacheStatsVO cacheStats() {
+        return itemCache.getStats();
+    }
+}
@@ -0,0 +1,73 @@
+package redlib.backend.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import redlib.backend.annotation.BackendModule;
+import redlib.backend.annotation.NeedNoPrivilege;
+import redlib.backend.annotation.Privilege;
+import redlib.backend.dto.ReservationDTO;
+import redlib.backend.service.ReservationService;
+import redlib.backend.vo.ReservationVO;
+import redlib.backend.vo.StockAvailabilityVO;
+
+/**
+ * 库存预留后端服务模块
+ */
+@RestController
+@RequestMapping("/api/reservation")
+@BackendModule({"page:页面"})
+public class ReservationController {
+    @Autowired
+    private ReservationService reservationService;
+
+    /**
+     * 预留库存，用于拣货单等待拣货期间锁定数量，过期后自动释放
+     *
+     * @param reservationDTO 预留信息，需要包含以下字段：
+     *                       itemId - 物品ID（必填）
+     *                       quantity - 预留数量（必填，不能超过可用库存）
+     *                       ttl - 有效期，单位秒（可选）
+     *                       remark - 备注（可选，确认时写入出库记录）
+     * @return 预留结果
+     */
+    @PostMapping("reserve")
+    @Privilege
+    public ReservationVO reserve(@RequestBody ReservationDTO reservationDTO) {
+        return reservationService.reserve(reservationDTO);
+    }
+
+    /**
+     * 确认预留，按预留数量出库，只能确认自己的预留（root用户除外）
+     *
+     * @param id 预留ID
+     * @return 出入库记录ID
+     */
+    @PostMapping("confirm")
+    @Privilege
+    public Integer confirm(Long id) {
+        return reservationService.confirm(id);
+    }
+
+    /**
+     * 释放预留，只能释放自己的预留（root用户除外）
+     *
+     * @param id 预留ID
+     */
+    @PostMapping("release")
+    @Privilege
+    public void release(Long id) {
+        reservationService.release(id);
+    }
+
+    /**
+     * 获取物品的可用库存
+     *
+     * @param itemId 物品ID
+     * @return 当前库存、已预留数量和可用库存
+     */
+    @GetMapping("available")
+    @NeedNoPrivilege
+    public StockAvailabilityVO available(Integer itemId) {
+        return reservationService.getAvailability(itemId);
+    }
+}
@@ -1,7 +1,9 @@
 package redlib.backend.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.*;
 import redlib.backend.annotation.BackendModule;
 import redlib.backend.annotation.Privilege;
@@ -10,8 +12,21 @@ import redlib.backend.dto.TransactionDTO;
 import redlib.backend.dto.query.TransactionQueryDTO;
 import redlib.backend.model.Page;
 import redlib.backend.service.TransactionService;
+import redlib.backend.service.export.ExportJobManager;
+import redlib.backend.service.export.ExportProgress;
+import redlib.backend.service.stock.TransactionGroupCommitter;
+import redlib.backend.utils.RowWriter;
+import redlib.backend.utils.XlsUtils;
+import redlib.backend.vo.ExportJobVO;
+import redlib.backend.vo.GroupCommitStatsVO;
+import redlib.backend.vo.TransactionResultVO;
 import redlib.backend.vo.TransactionVO;
 
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
 /**
  * 出入库记录管理后端服务模块
  */
@@ -23,6 +38,12 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionGroupCommitter transactionGroupCommitter;
+
+    @Autowired
+    private ExportJobManager exportJobManager;
+
     /**
      * 分页查询出入库记录
      *
@@ -46,12 +67,18 @@ public class TransactionController {
      *                       itemId - 物品ID（必填）
      *                       quantity - 入库数量（必填，必须大于0）
      *                       remark - 备注（可选）
+     * @param idempotencyKey 幂等键（可选），也可以放在请求体的idempotencyKey字段中，
+     *                       有效期内用相同的幂等键重试会返回原始操作的记录ID
      * @return 出入库记录ID
      */
     @PostMapping("checkIn")
     @NeedNoPrivilege
-    public Integer checkIn(@RequestBody TransactionDTO transactionDTO) {
+    public Integer checkIn(@RequestBody TransactionDTO transactionDTO,
+                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         log.info("执行入库操作，参数: {}", transactionDTO);
+        if (idempotencyKey != null) {
+            transactionDTO.setIdempotencyKey(idempotencyKey);
+        }
         Integer id = transactionService.checkIn(transactionDTO);
         log.info("入库操作完成，记录ID: {}", id);
         return id;
@@ -65,14 +92,101 @@ public class TransactionController {
      *                       itemId - 物品ID（必填）
      *                       quantity - 出库数量（必填，必须大于0且不超过当前库存）
      *                       remark - 备注（可选）
+     * @param idempotencyKey 幂等键（可选），也可以放在请求体的idempotencyKey字段中，
+     *                       有效期内用相同的幂等键重试会返回原始操作的记录ID
      * @return 出入库记录ID
      */
     @PostMapping("checkOut")
     @NeedNoPrivilege
-    public Integer checkOut(@RequestBody TransactionDTO transactionDTO) {
+    public Integer checkOut(@RequestBody TransactionDTO transactionDTO,
+                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         log.info("执行出库操作，参数: {}", transactionDTO);
+        if (idempotencyKey != null) {
+            transactionDTO.setIdempotencyKey(idempotencyKey);
+        }
         Integer id = transactionService.checkOut(transactionDTO);
         log.info("出库操作完成，记录ID: {}", id);
         return id;
     }
+
+    /**
+     * 批量出入库操作，用于收货等一次提交大量明细的场景
+     * 所有明细在同一个事务中完成，任一明细失败则全部回滚
+     *
+     * @param transactionDTOList 出入库明细列表，每条需要包含以下字段：
+     *                           itemId - 物品ID（必填）
+     *                           operationType - 操作类型（必填，1代表入库，0代表出库）
+     *                           quantity - 数量（必填，必须大于0）
+     *                           remark - 备注（可选）
+     * @return 每条明细的操作结果，包含记录ID和操作后库存
+     */
+    @PostMapping("batch")
+    @NeedNoPrivilege
+    public List<TransactionResultVO> batch(@RequestBody List<TransactionDTO> transactionDTOList) {
+        log.info("执行批量出入库操作，明细数量: {}", transactionDTOList == null ? 0 : transactionDTOList.size());
+        return transactionService.batch(transactionDTOList);
+    }
+
+    /**
+     * 按时间范围导出出入库记录到Excel
+     *
+     * @param queryDTO 查询条件，必须指定开始和结束日期
+     * @param response HTTP响应
+     * @throws Exception IO异常
+     */
+    @PostMapping("exportTransaction")
+    @Privilege("page")
+    public void exportTransaction(@RequestBody TransactionQueryDTO queryDTO, HttpServletResponse response) throws Exception {
+        response.setContentType(XlsUtils.XLSX_CONTENT_TYPE);
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd$HHmmss");
+        response.addHeader("Content-Disposition", "attachment;filename=file" + sdf.format(new Date()) + ".xlsx");
+        OutputStream os = response.getOutputStream();
+        transactionService.export(queryDTO, os, ExportProgress.NONE);
+        os.close();
+    }
+
+    /**
+     * 提交按时间范围导出出入库记录的异步任务，通过/api/export查询进度和下载
+     *
+     * @param queryDTO 查询条件，必须指定开始和结束日期
+     * @return 导出任务
+     */
+    @PostMapping("submitExport")
+    @Privilege("page")
+    public ExportJobVO submitExport(@RequestBody TransactionQueryDTO queryDTO) {
+        Assert.isTrue(queryDTO.getStartDate() != null && queryDTO.getEndDate() != null, "开始日期和结束日期不能为空");
+        return exportJobManager.submit("transaction", XlsUtils.EXCEL_TYPE_XLSX, XlsUtils.XLSX_CONTENT_TYPE,
+                (outputStream, progress) -> transactionService.export(queryDTO, outputStream, progress));
+    }
+
+    /**
+     * 以CSV或NDJSON格式流式导出出入库记录，边查询边以分块传输发送，适合大批量数据
+     *
+     * @param queryDTO 查询条件，与分页查询相同，通过URL参数传入，日期格式为yyyy-MM-dd HH:mm:ss
+     * @param format   导出格式，csv或ndjson
+     * @param response HTTP响应
+     * @throws Exception IO异常
+     */
+    @GetMapping("exportStream")
+    @Privilege("page")
+    public void exportStream(TransactionQueryDTO queryDTO, @RequestParam(defaultValue = RowWriter.FORMAT_CSV) String format,
+                             HttpServletResponse response) throws Exception {
+        response.setContentType(RowWriter.contentType(format));
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd$HHmmss");
+        response.addHeader("Content-Disposition", "attachment;filename=transaction" + sdf.format(new Date()) + "." + format.toLowerCase());
+        // 禁止反向代理缓冲整个响应
+        response.addHeader("X-Accel-Buffering", "no");
+        transactionService.exportText(queryDTO, format, response.getOutputStream());
+    }
+
+    /**
+     * 获取出入库记录合并提交的统计信息，包括批量大小和提交耗时分布，用于调整合并提交参数
+     *
+     * @return 统计信息
+     */
+    @GetMapping("groupCommitStats")
+    @Privilege("page")
+    public GroupCommitStatsVO groupCommitStats() {
+        return transactionGroupCommitter.getStats();
+    }
 } 
\ No newline at end of file
@@ -19,6 +19,8 @@ public interface AdminMapper {
 
     List<Admin> listByIds(@Param("ids") List<Integer> ids);
 
+    List<Admin> listNames();
+
     Integer count(@Param("queryDTO") KeywordQueryDTO queryDTO);
 
     List<Admin> list(
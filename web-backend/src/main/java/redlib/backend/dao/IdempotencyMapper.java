@@ -0,0 +1,51 @@
+package redlib.backend.dao;
+
+import org.apache.ibatis.annotations.Param;
+import redlib.backend.model.IdempotencyRecord;
+
+import java.util.Date;
+
+/**
+ * 出入库幂等键数据访问组件
+ */
+public interface IdempotencyMapper {
+    /**
+     * 根据幂等键获取记录
+     *
+     * @param idemKey 幂等键
+     * @return 幂等键记录
+     */
+    IdempotencyRecord selectByKey(@Param("idemKey") String idemKey);
+
+    /**
+     * 新增记录，幂等键重复时抛出DuplicateKeyException
+     *
+     * @param record 幂等键记录
+     * @return 新增的记录数
+     */
+    int insert(IdempotencyRecord record);
+
+    /**
+     * 回填原始操作结果
+     *
+     * @param record 幂等键记录
+     * @return 更新的记录数
+     */
+    int updateResult(IdempotencyRecord record);
+
+    /**
+     * 删除指定的幂等键
+     *
+     * @param idemKey 幂等键
+     * @return 删除的记录数
+     */
+    int deleteByKey(@Param("idemKey") String idemKey);
+
+    /**
+     * 删除过期的记录
+     *
+     * @param before 早于该时间创建的记录会被删除
+     * @return 删除的记录数
+     */
+    int deleteBefore(@Param("before") Date before);
+}
@@ -1,8 +1,11 @@
 package redlib.backend.dao;
 
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import redlib.backend.dto.query.ItemQueryDTO;
 import redlib.backend.model.Item;
+import redlib.backend.model.StockChange;
+import redlib.backend.vo.ItemVO;
 
 import java.util.List;
 
@@ -20,6 +23,21 @@ public interface ItemMapper {
      */
     int insert(Item record);
 
+    /**
+     * 用一条多行insert语句批量新增记录，新生成的ID回填到各记录
+     *
+     * @param itemList 物品列表，不能为空
+     * @return 新增的记录数
+     */
+    int insertBatch(@Param("itemList") List<Item> itemList);
+
+    /**
+     * 获取全部物品编号，用于批量导入前检查编号是否重复
+     *
+     * @return 物品编号列表
+     */
+    List<String> listItemNumbers();
+
     /**
      * 根据主键更新记录
      *
@@ -57,12 +75,51 @@ public interface ItemMapper {
                    @Param("limit") Integer limit);
 
     /**
-     * 根据查询条件获取所有物品列表
+     * 根据查询条件以游标方式流式读取所有物品，需要在事务内使用，读完之前同一连接上不能执行其他查询
+     *
+     * @param queryDTO 查询条件
+     * @return 物品游标
+     */
+    Cursor<Item> cursorAll(@Param("queryDTO") ItemQueryDTO queryDTO);
+
+    /**
+     * 获取物品表中出现过的全部操作人ID
+     *
+     * @return 操作人ID列表
+     */
+    List<Integer> listOperatorIds();
+
+    /**
+     * 以游标方式读取导出用的物品数据，已关联出操作人姓名，按ID排序，需要在事务内使用
      *
      * @param queryDTO 查询条件
+     * @return 物品游标
+     */
+    Cursor<ItemVO> cursorForExport(@Param("queryDTO") ItemQueryDTO queryDTO);
+
+    /**
+     * 获取所有物品的id和库存数量
+     *
+     * @return 物品列表，仅包含id和stockQuantity
+     */
+    List<Item> listStock();
+
+    /**
+     * 按id升序获取id大于lastId的物品，用于分批读取全部物品
+     *
+     * @param lastId 上一批最后一个物品的id，第一批传0
+     * @param limit  每批数量
      * @return 物品列表
      */
-    List<Item> listAll(@Param("queryDTO") ItemQueryDTO queryDTO);
+    List<Item> listAfterId(@Param("lastId") Integer lastId, @Param("limit") Integer limit);
+
+    /**
+     * 根据id列表批量获取物品
+     *
+     * @param ids id列表，不能为空
+     * @return 物品列表
+     */
+    List<Item> listByIds(@Param("ids") List<Integer> ids);
 
     /**
      * 根据id列表批量删除物品
@@ -78,4 +135,29 @@ public interface ItemMapper {
      * @param quantity 变动数量（正数为增加，负数为减少）
      */
     int updateStock(@Param("id") Integer id, @Param("quantity") Integer quantity);
+
+    /**
+     * 带库存校验的原子库存更新，仅当变动后库存不小于stockChange.floor时才更新，
+     * 更新成功后将变动后库存回填到stockChange.postStock
+     *
+     * @param stockChange 库存变动参数
+     * @return 更新的记录数，0表示物品不存在或库存不足
+     */
+    int updateStockGuarded(StockChange stockChange);
+
+    /**
+     * 根据id列表获取物品并加行锁，按id排序以保证加锁顺序一致
+     *
+     * @param idList id列表
+     * @return 物品列表
+     */
+    List<Item> listByIdsForUpdate(@Param("idList") List<Integer> idList);
+
+    /**
+     * 用一条语句批量更新多个物品的库存
+     *
+     * @param changeList 库存变动列表，每个物品只能出现一次
+     * @return 更新的记录数
+     */
+    int batchUpdateStock(@Param("changeList") List<StockChange> changeList);
 } 
\ No newline at end of file
@@ -0,0 +1,16 @@
+package redlib.backend.dao;
+
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 表统计信息数据访问组件
+ */
+public interface TableStatsMapper {
+    /**
+     * 从数据库统计信息中获取表的估算行数，不扫描表
+     *
+     * @param tableName 表名
+     * @return 估算行数，没有统计信息时返回null
+     */
+    Long estimateRows(@Param("tableName") String tableName);
+}
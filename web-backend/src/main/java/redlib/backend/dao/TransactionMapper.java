@@ -1,9 +1,13 @@
 package redlib.backend.dao;
 
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import redlib.backend.dto.query.TransactionQueryDTO;
+import redlib.backend.model.PageCursor;
 import redlib.backend.model.Transaction;
+import redlib.backend.vo.TransactionVO;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -20,6 +24,14 @@ public interface TransactionMapper {
      */
     int insert(Transaction record);
 
+    /**
+     * 多行批量新增记录，生成的主键回填到各记录的id
+     *
+     * @param list 记录列表
+     * @return 新增的记录数
+     */
+    int insertBatch(List<Transaction> list);
+
     /**
      * 根据查询条件获取命中个数
      *
@@ -39,6 +51,42 @@ public interface TransactionMapper {
     List<Transaction> list(@Param("queryDTO") TransactionQueryDTO queryDTO, 
                           @Param("offset") Integer offset, 
                           @Param("limit") Integer limit);
+
+    /**
+     * 根据查询条件和分页游标获取出入库记录列表，按(operation_time, id)定位，不需要跳过前面的记录
+     *
+     * @param queryDTO 查询条件
+     * @param cursor   分页游标，为null时从最新的记录开始
+     * @param limit    记录数量
+     * @return 出入库记录列表，向前翻页时按时间正序，否则按时间倒序
+     */
+    List<Transaction> listByCursor(@Param("queryDTO") TransactionQueryDTO queryDTO,
+                                   @Param("cursor") PageCursor cursor,
+                                   @Param("limit") Integer limit);
+
+    /**
+     * 以游标方式读取导出用的出入库记录，已关联出物品信息和经手人姓名，按时间倒序，需要在事务内使用
+     *
+     * @param queryDTO 查询条件
+     * @return 出入库记录游标
+     */
+    Cursor<TransactionVO> cursorForExport(@Param("queryDTO") TransactionQueryDTO queryDTO);
+
+    /**
+     * 按时间范围分批读取导出用的出入库记录，按(operation_time, id)正序，查询条件中的日期范围不起作用
+     *
+     * @param queryDTO 查询条件
+     * @param from     开始时间（含）
+     * @param to       结束时间（不含）
+     * @param cursor   上一批最后一条记录的位置，为null时从头开始
+     * @param limit    记录数量
+     * @return 出入库记录列表
+     */
+    List<TransactionVO> listForExport(@Param("queryDTO") TransactionQueryDTO queryDTO,
+                                      @Param("from") Date from,
+                                      @Param("to") Date to,
+                                      @Param("cursor") PageCursor cursor,
+                                      @Param("limit") Integer limit);
                           
     /**
      * 根据物品ID获取出入库记录列表
@@ -47,12 +95,4 @@ public interface TransactionMapper {
      * @return 出入库记录列表
      */
     List<Transaction> listByItemId(@Param("itemId") Integer itemId);
-    
-    /**
-     * 更新所有记录中的操作类型
-     * 将"入库"更新为"1"，将"出库"更新为"0"
-     *
-     * @return 更新的记录数
-     */
-    int updateAllOperationTypes();
-} 
\ No newline at end of file
+}
\ No newline at end of file
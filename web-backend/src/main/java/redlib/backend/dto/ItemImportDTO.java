@@ -0,0 +1,34 @@
+package redlib.backend.dto;
+
+import lombok.Data;
+
+/**
+ * 物品导入文件中的一行，各列按文本读取，校验时再转换，格式错误可以按行报告
+ */
+@Data
+public class ItemImportDTO {
+    /**
+     * 物品名称
+     */
+    private String name;
+
+    /**
+     * 物品编号
+     */
+    private String itemNumber;
+
+    /**
+     * 单位
+     */
+    private String unit;
+
+    /**
+     * 规格
+     */
+    private String specification;
+
+    /**
+     * 库存阈值
+     */
+    private String threshold;
+}
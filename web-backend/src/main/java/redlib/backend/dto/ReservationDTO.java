@@ -0,0 +1,29 @@
+package redlib.backend.dto;
+
+import lombok.Data;
+
+/**
+ * 库存预留数据传输对象
+ */
+@Data
+public class ReservationDTO {
+    /**
+     * 物品ID
+     */
+    private Integer itemId;
+
+    /**
+     * 预留数量
+     */
+    private Integer quantity;
+
+    /**
+     * 有效期（秒），不填时使用默认有效期
+     */
+    private Integer ttl;
+
+    /**
+     * 备注
+     */
+    private String remark;
+}
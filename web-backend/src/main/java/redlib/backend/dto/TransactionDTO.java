@@ -31,4 +31,9 @@ public class TransactionDTO {
      * 备注
      */
     private String remark;
-} 
\ No newline at end of file
+
+    /**
+     * 幂等键（可选），客户端重试时携带相同的值，避免重复出入库
+     */
+    private String idempotencyKey;
+}
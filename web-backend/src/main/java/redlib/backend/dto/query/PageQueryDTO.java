@@ -12,4 +12,9 @@ import lombok.Data;
 public class PageQueryDTO {
     private int current;
     private int pageSize;
+
+    /**
+     * 总记录数统计方式：exact、cached、estimated或none，参见{@link redlib.backend.model.CountMode}
+     */
+    private String countMode;
 }
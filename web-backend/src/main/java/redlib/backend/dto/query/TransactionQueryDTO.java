@@ -1,6 +1,7 @@
 package redlib.backend.dto.query;
 
 import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
 import redlib.backend.model.Page;
 
 import java.util.Date;
@@ -33,10 +34,18 @@ public class TransactionQueryDTO extends Page {
     /**
      * 开始日期
      */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private Date startDate;
 
     /**
      * 结束日期
      */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private Date endDate;
+
+    /**
+     * 分页游标，不为null时使用游标分页：传空字符串表示第一页，之后传上次返回的nextCursor或prevCursor。
+     * 游标分页按(操作时间, ID)定位，不受页码深度影响，但不统计总记录数，返回的total为-1
+     */
+    private String cursor;
 } 
\ No newline at end of file
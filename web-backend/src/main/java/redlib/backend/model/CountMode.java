@@ -0,0 +1,49 @@
+package redlib.backend.model;
+
+import org.springframework.util.Assert;
+
+/**
+ * 分页查询的总记录数统计方式
+ */
+public enum CountMode {
+    /**
+     * 每次执行count(*)，默认方式
+     */
+    EXACT,
+
+    /**
+     * 按查询条件缓存count(*)的结果，数据变更时失效
+     */
+    CACHED,
+
+    /**
+     * 没有查询条件时使用数据库统计信息中的估算行数，有查询条件时同CACHED
+     */
+    ESTIMATED,
+
+    /**
+     * 不统计总记录数，只返回是否有下一页
+     */
+    NONE;
+
+    /**
+     * 解析统计方式，不区分大小写
+     *
+     * @param value 统计方式，为空时使用EXACT
+     * @return 统计方式
+     */
+    public static CountMode of(String value) {
+        if (value == null || value.isBlank()) {
+            return EXACT;
+        }
+
+        for (CountMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+
+        Assert.isTrue(false, "不支持的统计方式: " + value);
+        return EXACT;
+    }
+}
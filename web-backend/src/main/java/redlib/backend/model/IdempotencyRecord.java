@@ -0,0 +1,46 @@
+package redlib.backend.model;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 出入库幂等键记录，用于持久化幂等键与原始操作结果的对应关系
+ */
+@Data
+public class IdempotencyRecord {
+    /**
+     * 幂等键（已加上用户前缀）
+     */
+    private String idemKey;
+
+    /**
+     * 物品ID
+     */
+    private Integer itemId;
+
+    /**
+     * 操作类型，1代表入库，0代表出库
+     */
+    private String operationType;
+
+    /**
+     * 操作数量
+     */
+    private Integer quantity;
+
+    /**
+     * 原始出入库记录ID
+     */
+    private Integer transactionId;
+
+    /**
+     * 原始操作后库存
+     */
+    private Integer postStock;
+
+    /**
+     * 创建时间
+     */
+    private Date createdAt;
+}
@@ -1,5 +1,6 @@
 package redlib.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
 import java.util.Collections;
@@ -24,10 +25,28 @@ public class Page<T> {
      * 总记录条数
      **/
     private int total;
+    /**
+     * 是否有下一页
+     **/
+    private Boolean hasNext;
+    /**
+     * 总记录数统计方式（查询参数）：exact、cached、estimated或none，为none时total为-1，
+     * 参见{@link CountMode}
+     **/
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String countMode;
     /**
      * 当前页需要的数据
      **/
     private List<T> list;
+    /**
+     * 下一页游标，没有下一页时为null
+     **/
+    private String nextCursor;
+    /**
+     * 上一页游标，没有上一页时为null
+     **/
+    private String prevCursor;
 
     public Page() {
 
@@ -41,6 +60,8 @@ public class Page<T> {
     }
 
     public static Page getNullPage(Integer page, Integer pageSize) {
-        return new Page(page, pageSize, 0, Collections.emptyList());
+        Page nullPage = new Page(page, pageSize, 0, Collections.emptyList());
+        nullPage.setHasNext(false);
+        return nullPage;
     }
 }
\ No newline at end of file
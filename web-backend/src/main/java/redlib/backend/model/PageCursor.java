@@ -0,0 +1,36 @@
+package redlib.backend.model;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 分页游标，记录上一页边界记录的排序键，用于按(operation_time, id)定位下一页
+ */
+@Data
+public class PageCursor {
+    /**
+     * true表示向前翻页（取更新的记录），false表示向后翻页（取更早的记录）
+     */
+    private boolean backward;
+
+    /**
+     * 边界记录的操作时间
+     */
+    private Date operationTime;
+
+    /**
+     * 边界记录的ID
+     */
+    private Integer id;
+
+    public PageCursor() {
+
+    }
+
+    public PageCursor(boolean backward, Date operationTime, Integer id) {
+        this.backward = backward;
+        this.operationTime = operationTime;
+        this.id = id;
+    }
+}
@@ -0,0 +1,46 @@
+package redlib.backend.model;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 库存预留
+ */
+@Data
+public class Reservation {
+    /**
+     * 预留ID
+     */
+    private Long id;
+
+    /**
+     * 物品ID
+     */
+    private Integer itemId;
+
+    /**
+     * 预留数量
+     */
+    private Integer quantity;
+
+    /**
+     * 预留人ID
+     */
+    private Integer userId;
+
+    /**
+     * 备注，确认时写入出库记录
+     */
+    private String remark;
+
+    /**
+     * 创建时间
+     */
+    private Date createdAt;
+
+    /**
+     * 过期时间
+     */
+    private Date expireAt;
+}
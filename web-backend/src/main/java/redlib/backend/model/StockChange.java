@@ -0,0 +1,44 @@
+package redlib.backend.model;
+
+import lombok.Data;
+
+/**
+ * 库存变动参数对象，用于带条件的原子库存更新
+ */
+@Data
+public class StockChange {
+    /**
+     * 物品ID
+     */
+    private Integer itemId;
+
+    /**
+     * 变动数量（正数为增加，负数为减少）
+     */
+    private Integer quantity;
+
+    /**
+     * 变动后库存的下限，出库时为物品的已预留数量，默认为0
+     */
+    private Integer floor = 0;
+
+    /**
+     * 变动后库存，由数据库更新语句回填
+     */
+    private Integer postStock;
+
+    public StockChange() {
+
+    }
+
+    public StockChange(Integer itemId, Integer quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+    }
+
+    public StockChange(Integer itemId, Integer quantity, Integer floor) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.floor = floor;
+    }
+}
@@ -1,13 +1,14 @@
 package redlib.backend.service;
 
 
-import org.apache.poi.ss.usermodel.Workbook;
 import redlib.backend.dto.DepartmentDTO;
 import redlib.backend.dto.query.DepartmentQueryDTO;
 import redlib.backend.model.Page;
+import redlib.backend.service.export.ExportProgress;
 import redlib.backend.vo.DepartmentVO;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -44,7 +45,14 @@ public interface DepartmentService {
      */
     void deleteByCodes(List<Integer> ids);
 
-    Workbook export(DepartmentQueryDTO queryDTO);
+    /**
+     * 以xlsx格式流式导出部门
+     *
+     * @param queryDTO     查询条件
+     * @param outputStream 输出流
+     * @param progress     导出进度
+     */
+    void export(DepartmentQueryDTO queryDTO, OutputStream outputStream, ExportProgress progress);
 
     int importDepartment(
             InputStream inputStream,
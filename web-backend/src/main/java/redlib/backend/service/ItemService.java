@@ -1,11 +1,16 @@
 package redlib.backend.service;
 
-import org.apache.poi.ss.usermodel.Workbook;
 import redlib.backend.dto.ItemDTO;
 import redlib.backend.dto.query.ItemQueryDTO;
 import redlib.backend.model.Page;
+import redlib.backend.service.export.ExportProgress;
+import redlib.backend.vo.ItemImportResultVO;
+import redlib.backend.vo.ItemSearchVO;
+import redlib.backend.vo.ItemSuggestVO;
 import redlib.backend.vo.ItemVO;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -20,6 +25,33 @@ public interface ItemService {
      */
     Page<ItemVO> listByPage(ItemQueryDTO queryDTO);
 
+    /**
+     * 按关键字搜索物品，结果按相关度排序并标出命中部分
+     *
+     * @param keyword 关键字，匹配名称和编号
+     * @param limit   最多返回的数量
+     * @return 搜索结果
+     */
+    List<ItemSearchVO> search(String keyword, Integer limit);
+
+    /**
+     * 按拼音全拼或首字母搜索物品名称，匹配位置靠前的排在前面
+     *
+     * @param keyword 拼音，如shubiao、sb
+     * @param limit   最多返回的数量
+     * @return 搜索结果
+     */
+    List<ItemSearchVO> pinyinSearch(String keyword, Integer limit);
+
+    /**
+     * 输入联想：查询编号或名称以指定前缀开头的物品
+     *
+     * @param prefix 前缀，不区分大小写
+     * @param limit  最多返回的数量
+     * @return 联想结果，包含当前库存
+     */
+    List<ItemSuggestVO> suggest(String prefix, Integer limit);
+
     /**
      * 添加物品信息
      *
@@ -28,6 +60,16 @@ public interface ItemService {
      */
     Integer addItem(ItemDTO itemDTO);
 
+    /**
+     * 从Excel或CSV文件批量导入物品，有错误的行跳过，其余行照常导入
+     *
+     * @param inputStream 文件内容
+     * @param fileName    文件名，支持xls、xlsx和csv
+     * @return 导入结果，包含失败的行和原因
+     * @throws Exception 文件读取异常
+     */
+    ItemImportResultVO importItem(InputStream inputStream, String fileName) throws Exception;
+
     /**
      * 根据ID获取物品信息
      *
@@ -54,8 +96,18 @@ public interface ItemService {
     /**
      * 导出物品信息到Excel
      *
-     * @param queryDTO 查询条件
-     * @return Excel工作簿
+     * @param queryDTO     查询条件
+     * @param outputStream 输出流，以xlsx格式流式写出
+     * @param progress     导出进度
+     */
+    void export(ItemQueryDTO queryDTO, OutputStream outputStream, ExportProgress progress);
+
+    /**
+     * 以CSV或NDJSON格式流式导出物品，边查询边写出
+     *
+     * @param queryDTO     查询条件
+     * @param format       导出格式，csv或ndjson
+     * @param outputStream 输出流
      */
-    Workbook export(ItemQueryDTO queryDTO);
-} 
\ No newline at end of file
+    void exportText(ItemQueryDTO queryDTO, String format, OutputStream outputStream);
+}
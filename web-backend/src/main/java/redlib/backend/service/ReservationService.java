@@ -0,0 +1,41 @@
+package redlib.backend.service;
+
+import redlib.backend.dto.ReservationDTO;
+import redlib.backend.vo.ReservationVO;
+import redlib.backend.vo.StockAvailabilityVO;
+
+/**
+ * 库存预留服务接口
+ */
+public interface ReservationService {
+    /**
+     * 预留库存，预留的数量不能超过可用库存
+     *
+     * @param reservationDTO 预留信息
+     * @return 预留结果
+     */
+    ReservationVO reserve(ReservationDTO reservationDTO);
+
+    /**
+     * 确认预留，按预留数量执行一次出库
+     *
+     * @param id 预留ID
+     * @return 出入库记录ID
+     */
+    Integer confirm(Long id);
+
+    /**
+     * 释放预留
+     *
+     * @param id 预留ID
+     */
+    void release(Long id);
+
+    /**
+     * 获取物品的可用库存
+     *
+     * @param itemId 物品ID
+     * @return 当前库存、已预留数量和可用库存
+     */
+    StockAvailabilityVO getAvailability(Integer itemId);
+}
@@ -3,8 +3,13 @@ package redlib.backend.service;
 import redlib.backend.dto.TransactionDTO;
 import redlib.backend.dto.query.TransactionQueryDTO;
 import redlib.backend.model.Page;
+import redlib.backend.service.export.ExportProgress;
+import redlib.backend.vo.TransactionResultVO;
 import redlib.backend.vo.TransactionVO;
 
+import java.io.OutputStream;
+import java.util.List;
+
 /**
  * 出入库记录管理服务接口
  */
@@ -32,4 +37,30 @@ public interface TransactionService {
      * @return 出入库记录ID
      */
     Integer checkOut(TransactionDTO transactionDTO);
-} 
\ No newline at end of file
+
+    /**
+     * 批量出入库操作，所有明细在同一个事务中完成，任一明细失败则全部回滚
+     *
+     * @param transactionDTOList 出入库明细列表，operationType为1代表入库，0代表出库
+     * @return 每条明细的操作结果
+     */
+    List<TransactionResultVO> batch(List<TransactionDTO> transactionDTOList);
+
+    /**
+     * 以CSV或NDJSON格式流式导出出入库记录，边查询边写出
+     *
+     * @param queryDTO     查询条件
+     * @param format       导出格式，csv或ndjson
+     * @param outputStream 输出流
+     */
+    void exportText(TransactionQueryDTO queryDTO, String format, OutputStream outputStream);
+
+    /**
+     * 按时间范围导出出入库记录到Excel，按月份并行查询，以xlsx格式流式写出
+     *
+     * @param queryDTO     查询条件，必须指定开始和结束日期
+     * @param outputStream 输出流
+     * @param progress     导出进度
+     */
+    void export(TransactionQueryDTO queryDTO, OutputStream outputStream, ExportProgress progress);
+}
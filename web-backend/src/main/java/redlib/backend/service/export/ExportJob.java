@@ -0,0 +1,142 @@
+package redlib.backend.service.export;
+
+import redlib.backend.vo.ExportJobVO;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 导出任务，状态和进度由执行线程更新，查询线程读取
+ */
+public class ExportJob implements ExportProgress {
+    public static final String QUEUED = "QUEUED";
+
+    public static final String RUNNING = "RUNNING";
+
+    public static final String DONE = "DONE";
+
+    public static final String FAILED = "FAILED";
+
+    private final String id;
+
+    private final String type;
+
+    private final String fileName;
+
+    private final String contentType;
+
+    private final Integer userId;
+
+    private final Date createdAt = new Date();
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private volatile String status = QUEUED;
+
+    private volatile long total = -1;
+
+    private volatile String message;
+
+    private volatile Path file;
+
+    private volatile long size;
+
+    private volatile Date finishedAt;
+
+    private volatile Date expireAt;
+
+    ExportJob(String id, String type, String fileName, String contentType, Integer userId) {
+        this.id = id;
+        this.type = type;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.userId = userId;
+    }
+
+    @Override
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    @Override
+    public void addProcessed(long count) {
+        processed.addAndGet(count);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 是否已结束，包括完成和失败
+     */
+    public boolean isFinished() {
+        return DONE.equals(status) || FAILED.equals(status);
+    }
+
+    void start() {
+        status = RUNNING;
+    }
+
+    void complete(Path file, long size, Date expireAt) {
+        this.file = file;
+        this.size = size;
+        this.expireAt = expireAt;
+        this.finishedAt = new Date();
+        this.status = DONE;
+    }
+
+    void fail(String message, Date expireAt) {
+        this.message = message;
+        this.expireAt = expireAt;
+        this.finishedAt = new Date();
+        this.status = FAILED;
+    }
+
+    ExportJobVO toVO() {
+        // 先读状态，完成时写入的文件大小等字段对读到DONE的线程可见
+        String current = status;
+        ExportJobVO vo = new ExportJobVO();
+        vo.setId(id);
+        vo.setType(type);
+        vo.setFileName(fileName);
+        vo.setStatus(current);
+        vo.setTotal(total);
+        vo.setProcessed(processed.get());
+        vo.setSize(DONE.equals(current) ? size : null);
+        vo.setMessage(message);
+        vo.setCreatedAt(createdAt);
+        vo.setFinishedAt(finishedAt);
+        vo.setExpireAt(expireAt);
+        return vo;
+    }
+}
@@ -0,0 +1,237 @@
+package redlib.backend.service.export;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import redlib.backend.model.Token;
+import redlib.backend.utils.ThreadContextHolder;
+import redlib.backend.utils.TimingWheel;
+import redlib.backend.vo.ExportJobVO;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 异步导出任务管理
+ * 提交的导出任务在固定大小的线程池中执行，结果写入本地目录，不占用请求线程；
+ * 排队数量和每个用户同时进行的任务数都有上限。
+ * 任务结束后保留一段时间供下载，到期后由时间轮删除记录和文件。
+ * 任务记录只保存在内存中，重启后未下载的结果文件在启动时清理。
+ */
+@Component
+@Slf4j
+public class ExportJobManager {
+    private static final String PART_SUFFIX = ".part";
+
+    /**
+     * 任务文件名：32位十六进制任务ID加扩展名，包括未写完的.part文件
+     */
+    private static final Pattern JOB_FILE = Pattern.compile("[0-9a-f]{32}\\.[A-Za-z0-9]+");
+
+    @Value("${warehouse.export.threads:2}")
+    private int threads;
+
+    @Value("${warehouse.export.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${warehouse.export.max-per-user:2}")
+    private int maxPerUser;
+
+    /**
+     * 结果保留时间（秒）
+     */
+    @Value("${warehouse.export.ttl:3600}")
+    private int ttl;
+
+    @Value("${warehouse.export.dir:}")
+    private String dir;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    private Path directory;
+
+    private ThreadPoolExecutor executor;
+
+    private TimingWheel timingWheel;
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = StringUtils.hasText(dir) ? Paths.get(dir) : Paths.get(System.getProperty("java.io.tmpdir"), "warehouse-export");
+        Files.createDirectories(directory);
+        cleanDirectory();
+
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "export-job-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 刻度1秒，512个槽位转一圈约8.5分钟，更长的保留时间通过圈数计算
+        timingWheel = new TimingWheel("export-expiry", 1000, 512);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        timingWheel.stop();
+    }
+
+    /**
+     * 提交导出任务，提交人取自当前登录用户
+     *
+     * @param type        导出内容，用于生成文件名，如item
+     * @param extension   结果文件扩展名
+     * @param contentType 下载时的内容类型
+     * @param task        导出内容
+     * @return 任务信息
+     */
+    public synchronized ExportJobVO submit(String type, String extension, String contentType, ExportTask task) {
+        Token token = ThreadContextHolder.getToken();
+        long active = jobs.values().stream()
+                .filter(job -> Objects.equals(job.getUserId(), token.getUserId()) && !job.isFinished())
+                .count();
+        Assert.isTrue(active < maxPerUser, "同时进行的导出任务不能超过" + maxPerUser + "个，请等待已提交的任务完成");
+
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd$HHmmss");
+        String fileName = type + sdf.format(new Date()) + "." + extension;
+        ExportJob job = new ExportJob(UUID.randomUUID().toString().replace("-", ""), type, fileName, contentType, token.getUserId());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, extension, token, task));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.getId());
+            throw new IllegalArgumentException("导出任务排队已满，请稍后再试");
+        }
+        return job.toVO();
+    }
+
+    /**
+     * 获取当前用户的导出任务
+     *
+     * @param id 任务ID
+     * @return 任务信息
+     */
+    public ExportJobVO get(String id) {
+        return getOwnJob(id).toVO();
+    }
+
+    /**
+     * 获取当前用户全部未过期的导出任务，按提交时间倒序
+     *
+     * @return 任务列表
+     */
+    public List<ExportJobVO> list() {
+        Integer userId = ThreadContextHolder.getToken().getUserId();
+        return jobs.values().stream()
+                .filter(job -> Objects.equals(job.getUserId(), userId))
+                .sorted(Comparator.comparing(ExportJob::getCreatedAt).reversed())
+                .map(ExportJob::toVO)
+                .toList();
+    }
+
+    /**
+     * 获取已完成的导出任务，用于下载结果文件
+     *
+     * @param id 任务ID
+     * @return 导出任务
+     */
+    public ExportJob getResult(String id) {
+        ExportJob job = getOwnJob(id);
+        Assert.isTrue(ExportJob.DONE.equals(job.getStatus()), "导出任务尚未完成");
+        return job;
+    }
+
+    private ExportJob getOwnJob(String id) {
+        Assert.hasText(id, "任务ID不能为空");
+        ExportJob job = jobs.get(id);
+        Assert.notNull(job, "导出任务不存在或已过期");
+        Assert.isTrue(Objects.equals(job.getUserId(), ThreadContextHolder.getToken().getUserId()), "无权访问该导出任务");
+        return job;
+    }
+
+    private void run(ExportJob job, String extension, Token token, ExportTask task) {
+        // 导出代码可能需要读取当前用户，沿用提交人的令牌
+        ThreadContextHolder.setToken(token);
+        job.start();
+        long start = System.currentTimeMillis();
+        Path part = directory.resolve(job.getId() + PART_SUFFIX);
+        Path file = directory.resolve(job.getId() + "." + extension);
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(part))) {
+                task.run(outputStream, job);
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+            job.complete(file, Files.size(file), expireAt());
+            log.info("导出任务{}完成，文件大小: {}，耗时: {}ms", job.getId(), job.getSize(), System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            log.error("导出任务{}失败", job.getId(), ex);
+            Throwable cause = ex;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            job.fail(StringUtils.hasText(cause.getMessage()) ? cause.getMessage() : cause.toString(), expireAt());
+            delete(part);
+        } finally {
+            ThreadContextHolder.setToken(null);
+            timingWheel.schedule(() -> expire(job), ttl * 1000L);
+        }
+    }
+
+    private Date expireAt() {
+        return new Date(System.currentTimeMillis() + ttl * 1000L);
+    }
+
+    private void expire(ExportJob job) {
+        jobs.remove(job.getId());
+        if (job.getFile() != null) {
+            delete(job.getFile());
+        }
+    }
+
+    /**
+     * 删除上次运行留下的结果文件，任务记录已不存在，无法再下载。
+     * 只删除符合任务文件命名的文件，目录中的其他文件不动
+     */
+    private void cleanDirectory() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                if (Files.isRegularFile(path) && JOB_FILE.matcher(path.getFileName().toString()).matches()) {
+                    delete(path);
+                }
+            }
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("删除导出文件失败: {}", path, ex);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package redlib.backend.service.export;
+
+/**
+ * 导出进度，由导出方法在写出过程中更新
+ */
+public interface ExportProgress {
+    /**
+     * 不记录进度，用于同步导出
+     */
+    ExportProgress NONE = new ExportProgress() {
+        @Override
+        public void setTotal(long total) {
+        }
+
+        @Override
+        public void addProcessed(long count) {
+        }
+    };
+
+    /**
+     * 设置总行数
+     *
+     * @param total 总行数
+     */
+    void setTotal(long total);
+
+    /**
+     * 增加已写出的行数
+     *
+     * @param count 本次写出的行数
+     */
+    void addProcessed(long count);
+}
@@ -0,0 +1,18 @@
+package redlib.backend.service.export;
+
+import java.io.OutputStream;
+
+/**
+ * 导出任务的执行内容
+ */
+@FunctionalInterface
+public interface ExportTask {
+    /**
+     * 把导出结果写入输出流
+     *
+     * @param outputStream 结果文件的输出流
+     * @param progress     导出进度
+     * @throws Exception 导出失败
+     */
+    void run(OutputStream outputStream, ExportProgress progress) throws Exception;
+}
@@ -0,0 +1,190 @@
+package redlib.backend.service.export;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * 分区并行读取，按分区顺序输出
+ * 数据按范围拆成若干分区，最多同时读取parallelism个分区，每个分区在自己的线程中分批查询，
+ * 查到的批次放入该分区的有界队列；调用方按分区顺序逐批取出，当前分区取完后才开始读取后面的分区。
+ * 同时驻留内存的数据不超过 parallelism × (队列容量 + 1) 批，与总数据量无关。
+ * 每次查询前先取得permits中的一个许可，查完即释放，多个读取器共用同一个permits时，
+ * 同时占用数据库连接的查询总数不超过许可数量；等待队列空位时不占用许可。
+ * 非线程安全，只能由一个线程调用{@link #next()}。
+ *
+ * @param <P> 分区类型
+ * @param <T> 数据类型
+ */
+public class PartitionedReader<P, T> implements AutoCloseable {
+    /**
+     * 每个分区最多缓存的批次数量
+     */
+    private static final int QUEUE_CAPACITY = 2;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final Deque<P> remaining;
+
+    private final BiFunction<P, T, List<T>> fetcher;
+
+    private final int batchSize;
+
+    private final Semaphore permits;
+
+    private final ExecutorService executor;
+
+    /**
+     * 已开始读取、尚未取完的分区，按分区顺序排列
+     */
+    private final Deque<Reader> readers = new ArrayDeque<>();
+
+    private final int parallelism;
+
+    private volatile boolean closed;
+
+    /**
+     * 创建读取器并开始读取前几个分区
+     *
+     * @param partitions  分区列表，按输出顺序排列
+     * @param fetcher     查询一批数据：参数为分区和上一批的最后一条（第一批为null），返回的数量小于batchSize表示分区已读完
+     * @param batchSize   每批数量
+     * @param parallelism 同时读取的分区数量
+     * @param permits     查询许可，由所有读取器共用，用来限制全局同时执行的查询数量
+     */
+    public PartitionedReader(List<P> partitions, BiFunction<P, T, List<T>> fetcher, int batchSize, int parallelism,
+                             Semaphore permits) {
+        this.remaining = new ArrayDeque<>(partitions);
+        this.fetcher = fetcher;
+        this.batchSize = batchSize;
+        this.permits = permits;
+        this.parallelism = Math.max(parallelism, 1);
+        this.executor = Executors.newFixedThreadPool(this.parallelism, r -> {
+            Thread thread = new Thread(r, "partition-reader-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        fill();
+    }
+
+    /**
+     * 按分区顺序取出下一批数据
+     *
+     * @return 下一批数据，全部分区读完时返回空列表
+     */
+    public List<T> next() {
+        while (!readers.isEmpty()) {
+            Reader reader = readers.peekFirst();
+            Batch<T> batch;
+            try {
+                batch = reader.queue.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("读取分区数据被中断", ex);
+            }
+
+            if (batch.error != null) {
+                throw new RuntimeException("读取分区数据失败", batch.error);
+            }
+            if (batch.rows != null) {
+                return batch.rows;
+            }
+
+            // 当前分区已读完，开始读取下一个分区
+            readers.pollFirst();
+            fill();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 停止读取，未完成的分区不再查询
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fill() {
+        while (readers.size() < parallelism && !remaining.isEmpty()) {
+            Reader reader = new Reader(remaining.pollFirst());
+            readers.addLast(reader);
+            executor.execute(reader);
+        }
+    }
+
+    /**
+     * 一批数据；rows和error都为null表示分区结束
+     */
+    private static class Batch<T> {
+        private final List<T> rows;
+
+        private final Throwable error;
+
+        Batch(List<T> rows, Throwable error) {
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 读取一个分区的任务
+     */
+    private class Reader implements Runnable {
+        private final P partition;
+
+        private final BlockingQueue<Batch<T>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        Reader(P partition) {
+            this.partition = partition;
+        }
+
+        @Override
+        public void run() {
+            try {
+                T last = null;
+                while (!closed) {
+                    List<T> rows;
+                    permits.acquire();
+                    try {
+                        rows = fetcher.apply(partition, last);
+                    } finally {
+                        permits.release();
+                    }
+                    if (!rows.isEmpty()) {
+                        queue.put(new Batch<>(rows, null));
+                        last = rows.get(rows.size() - 1);
+                    }
+                    if (rows.size() < batchSize) {
+                        break;
+                    }
+                }
+                queue.put(new Batch<>(null, null));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable ex) {
+                // 失败信息放入队列，由调用方抛出；队列满时调用方取出前面的批次后即可放入
+                try {
+                    queue.put(new Batch<>(null, ex));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
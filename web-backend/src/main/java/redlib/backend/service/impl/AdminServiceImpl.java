@@ -9,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import redlib.backend.annotation.BackendModule;
+import redlib.backend.cache.AdminNameCache;
 import redlib.backend.dao.AdminMapper;
 import redlib.backend.dao.AdminPrivMapper;
 import redlib.backend.dto.AdminDTO;
@@ -41,6 +42,9 @@ public class AdminServiceImpl implements AdminService {
     @Autowired
     private AdminPrivMapper adminPrivMapper;
 
+    @Autowired
+    private AdminNameCache adminNameCache;
+
     @Override
     public List<ModuleVO> listModules() {
         List<ModuleVO> moduleVOList = new ArrayList<>();
@@ -82,6 +86,10 @@ public class AdminServiceImpl implements AdminService {
 
     @Override
     public Map<Integer, String> getNameMap(Set<Integer> adminIds) {
+        if (adminNameCache.isEnabled()) {
+            return adminNameCache.getNameMap(adminIds == null ? Collections.emptySet() : adminIds);
+        }
+
         Map<Integer, String> adminMap;
         if (!CollectionUtils.isEmpty(adminIds)) {
             List<Admin> admins = adminMapper.listByIds(new ArrayList<>(adminIds));
@@ -166,6 +174,7 @@ public class AdminServiceImpl implements AdminService {
         BeanUtils.copyProperties(adminDTO, admin);
         admin.setUpdatedBy(token.getUserId());
         adminMapper.updateByPrimaryKey(admin);
+        adminNameCache.put(admin.getId(), admin.getName());
         List<Integer> ids = new ArrayList<>();
         ids.add(admin.getId());
         adminPrivMapper.deleteByAdminIds(ids);
@@ -186,6 +195,7 @@ public class AdminServiceImpl implements AdminService {
         admin.setUpdatedBy(token.getUserId());
         admin.setCreatedBy(token.getUserId());
         adminMapper.insert(admin);
+        adminNameCache.put(admin.getId(), admin.getName());
         adminDTO.setId((admin.getId()));
         updateOtherInfo(adminDTO);
         return admin.getId();
@@ -195,6 +205,8 @@ public class AdminServiceImpl implements AdminService {
     public Integer delete(List<Integer> ids) {
         Assert.notEmpty(ids, "删除列表不能为空");
         int size = adminMapper.delete(ids);
+        // root不会被删除，从缓存中移除后下次查询时会重新加载
+        adminNameCache.remove(ids);
         adminPrivMapper.deleteByAdminIds(ids);
         return size;
     }
@@ -1,10 +1,10 @@
 package redlib.backend.service.impl;
 
-import org.apache.poi.ss.usermodel.Workbook;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
+import redlib.backend.cache.PageCountCache;
 import redlib.backend.dao.DepartmentMapper;
 import redlib.backend.dto.DepartmentDTO;
 import redlib.backend.dto.query.DepartmentQueryDTO;
@@ -13,6 +13,7 @@ import redlib.backend.model.Page;
 import redlib.backend.model.Token;
 import redlib.backend.service.AdminService;
 import redlib.backend.service.DepartmentService;
+import redlib.backend.service.export.ExportProgress;
 import redlib.backend.service.utils.DepartmentUtils;
 import redlib.backend.utils.FormatUtils;
 import redlib.backend.utils.PageUtils;
@@ -21,6 +22,7 @@ import redlib.backend.utils.XlsUtils;
 import redlib.backend.vo.DepartmentVO;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -39,6 +41,9 @@ public class DepartmentServiceImpl implements DepartmentService {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private PageCountCache pageCountCache;
+
     /**
      * 分页获取部门信息
      *
@@ -52,16 +57,18 @@ public class DepartmentServiceImpl implements DepartmentService {
         }
 
         queryDTO.setDepartmentName(FormatUtils.makeFuzzySearchTerm(queryDTO.getDepartmentName()));
-        Integer size = departmentMapper.count(queryDTO);
-        PageUtils pageUtils = new PageUtils(queryDTO.getCurrent(), queryDTO.getPageSize(), size);
+        Integer size = pageCountCache.count(PageCountCache.DEPARTMENT, "department", queryDTO, queryDTO.getCountMode(),
+                departmentMapper::count);
+        PageUtils pageUtils = PageUtils.of(queryDTO.getCurrent(), queryDTO.getPageSize(), size);
 
-        if (size == 0) {
+        if (size != null && size == 0) {
             // 没有命中，则返回空数据。
             return pageUtils.getNullPage();
         }
 
         // 利用myBatis到数据库中查询数据，以分页的方式
         List<Department> list = departmentMapper.list(queryDTO, pageUtils.getOffset(), pageUtils.getLimit());
+        boolean hasNext = pageUtils.hasNext(list);
 
         // 提取list列表中的创建人字段，到一个Set集合中去
         Set<Integer> adminIds = list.stream().map(Department::getCreatedBy).collect(Collectors.toSet());
@@ -79,7 +86,9 @@ public class DepartmentServiceImpl implements DepartmentService {
             voList.add(vo);
         }
 
-        return new Page<>(pageUtils.getCurrent(), pageUtils.getPageSize(), pageUtils.getTotal(), voList);
+        Page<DepartmentVO> page = new Page<>(pageUtils.getCurrent(), pageUtils.getPageSize(), pageUtils.getTotal(), voList);
+        page.setHasNext(hasNext);
+        return page;
     }
 
 
@@ -104,6 +113,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         department.setUpdatedBy(token.getUserId());
         // 调用DAO方法保存到数据库表
         departmentMapper.insert(department);
+        pageCountCache.invalidate(PageCountCache.DEPARTMENT);
         return department.getId();
     }
 
@@ -137,6 +147,7 @@ public class DepartmentServiceImpl implements DepartmentService {
         department.setUpdatedBy(token.getUserId());
         department.setUpdatedAt(new Date());
         departmentMapper.updateByPrimaryKey(department);
+        pageCountCache.invalidate(PageCountCache.DEPARTMENT);
         return department.getId();
     }
 
@@ -149,10 +160,11 @@ public class DepartmentServiceImpl implements DepartmentService {
     public void deleteByCodes(List<Integer> ids) {
         Assert.notEmpty(ids, "部门id列表不能为空");
         departmentMapper.deleteByCodes(ids);
+        pageCountCache.invalidate(PageCountCache.DEPARTMENT);
     }
 
     @Override
-    public Workbook export(DepartmentQueryDTO queryDTO) {
+    public void export(DepartmentQueryDTO queryDTO, OutputStream outputStream, ExportProgress progress) {
         queryDTO.setPageSize(100);
         Map<String, String> map = new LinkedHashMap<>();
         map.put("id", "部门ID");
@@ -164,19 +176,22 @@ public class DepartmentServiceImpl implements DepartmentService {
         map.put("createdByDesc", "创建人");
 
         final AtomicBoolean finalPage = new AtomicBoolean(false);
-        Workbook workbook = XlsUtils.exportToExcel(page -> {
+        XlsUtils.exportToExcel(outputStream, page -> {
             if (finalPage.get()) {
                 return null;
             }
             queryDTO.setCurrent(page);
-            List<DepartmentVO> list = listByPage(queryDTO).getList();
+            Page<DepartmentVO> result = listByPage(queryDTO);
+            if (page == 1 && result.getTotal() >= 0) {
+                progress.setTotal(result.getTotal());
+            }
+            List<DepartmentVO> list = result.getList();
             if (list.size() != 100) {
                 finalPage.set(true);
             }
+            progress.addProcessed(list.size());
             return list;
         }, map);
-
-        return workbook;
     }
 
     @Override
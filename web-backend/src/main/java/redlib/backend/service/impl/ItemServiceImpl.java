@@ -1,33 +1,55 @@
 package redlib.backend.service.impl;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
+import redlib.backend.cache.ItemCache;
+import redlib.backend.cache.PageCountCache;
 import redlib.backend.dao.ItemMapper;
 import redlib.backend.dto.ItemDTO;
+import redlib.backend.dto.ItemImportDTO;
 import redlib.backend.dto.query.ItemQueryDTO;
 import redlib.backend.model.Item;
 import redlib.backend.model.Page;
 import redlib.backend.model.Token;
 import redlib.backend.service.AdminService;
 import redlib.backend.service.ItemService;
+import redlib.backend.service.export.ExportProgress;
+import redlib.backend.service.search.ItemPinyinIndex;
+import redlib.backend.service.search.ItemSearchIndex;
+import redlib.backend.service.search.ItemSuggestIndex;
+import redlib.backend.service.stock.StockLedger;
 import redlib.backend.service.utils.ItemUtils;
 import redlib.backend.utils.FormatUtils;
 import redlib.backend.utils.PageUtils;
+import redlib.backend.utils.PinyinUtils;
+import redlib.backend.utils.RowWriter;
 import redlib.backend.utils.ThreadContextHolder;
 import redlib.backend.utils.XlsUtils;
+import redlib.backend.vo.ItemImportErrorVO;
+import redlib.backend.vo.ItemImportResultVO;
+import redlib.backend.vo.ItemSearchVO;
+import redlib.backend.vo.ItemSuggestVO;
 import redlib.backend.vo.ItemVO;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
-import org.apache.poi.ss.usermodel.Workbook;
 
 /**
  * 物品管理服务实现类
@@ -40,6 +62,57 @@ public class ItemServiceImpl implements ItemService {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private PageCountCache pageCountCache;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Autowired
+    private ItemPinyinIndex itemPinyinIndex;
+
+    @Autowired
+    private ItemSuggestIndex itemSuggestIndex;
+
+    /**
+     * 搜索关键字最大长度
+     */
+    private static final int MAX_KEYWORD_LENGTH = 50;
+
+    /**
+     * 搜索结果默认数量和最大数量
+     */
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    /**
+     * 导出时每批转换和写出的物品数量
+     */
+    private static final int EXPORT_BATCH_SIZE = 1000;
+
+    /**
+     * 导入时每条insert语句写入的物品数量
+     */
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    /**
+     * 导入结果中最多返回的失败行数
+     */
+    private static final int MAX_IMPORT_ERRORS = 1000;
+
+    /**
+     * 一次最多导入的物品数量
+     */
+    @Value("${warehouse.item-import.max-rows:300000}")
+    private int importMaxRows;
+
     /**
      * 分页查询物品
      *
@@ -52,19 +125,180 @@ public class ItemServiceImpl implements ItemService {
             queryDTO = new ItemQueryDTO();
         }
 
+        // 按名称过滤且使用默认排序时走全文索引，避免like全表扫描
+        String name = FormatUtils.trimToNull(queryDTO.getName());
+        if (name != null && name.length() <= MAX_KEYWORD_LENGTH
+                && FormatUtils.trimToNull(queryDTO.getOrderBy()) == null && itemSearchIndex.isReady()) {
+            return listByIndex(queryDTO, name);
+        }
+
         queryDTO.setName(FormatUtils.makeFuzzySearchTerm(queryDTO.getName()));
         queryDTO.setItemNumber(FormatUtils.makeFuzzySearchTerm(queryDTO.getItemNumber()));
-        Integer size = itemMapper.count(queryDTO);
-        PageUtils pageUtils = new PageUtils(queryDTO.getCurrent(), queryDTO.getPageSize(), size);
+        Integer size = pageCountCache.count(PageCountCache.ITEM, "items", queryDTO, queryDTO.getCountMode(), itemMapper::count);
+        PageUtils pageUtils = PageUtils.of(queryDTO.getCurrent(), queryDTO.getPageSize(), size);
 
-        if (size == 0) {
+        if (size != null && size == 0) {
             // 没有命中，则返回空数据。
             return pageUtils.getNullPage();
         }
 
         // 利用myBatis到数据库中查询数据，以分页的方式
         List<Item> list = itemMapper.list(queryDTO, pageUtils.getOffset(), pageUtils.getLimit());
+        boolean hasNext = pageUtils.hasNext(list);
+
+        Page<ItemVO> page = new Page<>(pageUtils.getCurrent(), pageUtils.getPageSize(), pageUtils.getTotal(), convertToVOList(list));
+        page.setHasNext(hasNext);
+        return page;
+    }
+
+    /**
+     * 通过全文索引分页查询物品，结果与like查询相同，按ID升序排列，总记录数总是精确值
+     */
+    private Page<ItemVO> listByIndex(ItemQueryDTO queryDTO, String name) {
+        String itemNumber = FormatUtils.trimToNull(queryDTO.getItemNumber());
+        PageUtils pageUtils = new PageUtils(queryDTO.getCurrent(), queryDTO.getPageSize());
+        ItemSearchIndex.Hits hits = itemSearchIndex.filter(name, itemNumber, pageUtils.getOffset(), pageUtils.getPageSize());
+        pageUtils = new PageUtils(queryDTO.getCurrent(), queryDTO.getPageSize(), hits.getTotal());
+        if (hits.getIds().isEmpty()) {
+            return pageUtils.getNullPage();
+        }
+
+        // 索引中只有名称和编号，其余字段从物品缓存中读取
+        Map<Integer, Item> itemMap = itemCache.getByIds(hits.getIds());
+        List<Item> list = new ArrayList<>(hits.getIds().size());
+        for (Integer id : hits.getIds()) {
+            Item item = itemMap.get(id);
+            if (item != null) {
+                list.add(item);
+            }
+        }
+
+        Page<ItemVO> page = new Page<>(pageUtils.getCurrent(), pageUtils.getPageSize(), pageUtils.getTotal(), convertToVOList(list));
+        page.setHasNext(pageUtils.hasNext(list));
+        return page;
+    }
+
+    /**
+     * 按关键字搜索物品
+     *
+     * @param keyword 关键字，匹配名称和编号
+     * @param limit   最多返回的数量
+     * @return 搜索结果
+     */
+    @Override
+    public List<ItemSearchVO> search(String keyword, Integer limit) {
+        keyword = FormatUtils.trimToNull(keyword);
+        Assert.notNull(keyword, "搜索关键字不能为空");
+        Assert.isTrue(keyword.length() <= MAX_KEYWORD_LENGTH, "搜索关键字长度不能超过" + MAX_KEYWORD_LENGTH);
+        Assert.isTrue(itemSearchIndex.isReady(), "物品索引正在重建，请稍后重试");
+        int size = searchLimit(limit);
+
+        List<ItemSearchVO> list = itemSearchIndex.search(keyword, size);
+        Map<Integer, Item> itemMap = itemCache.getByIds(list.stream().map(ItemSearchVO::getItemId).collect(Collectors.toList()));
+        for (ItemSearchVO vo : list) {
+            Item item = itemMap.get(vo.getItemId());
+            vo.setStockQuantity(item == null ? null : currentStock(item));
+        }
+        return list;
+    }
+
+    /**
+     * 按拼音全拼或首字母搜索物品名称
+     *
+     * @param keyword 拼音，如shubiao、sb
+     * @param limit   最多返回的数量
+     * @return 搜索结果
+     */
+    @Override
+    public List<ItemSearchVO> pinyinSearch(String keyword, Integer limit) {
+        Assert.hasText(keyword, "搜索关键字不能为空");
+        String query = PinyinUtils.normalize(keyword);
+        Assert.hasLength(query, "拼音搜索关键字只能包含字母和数字");
+        Assert.isTrue(query.length() <= MAX_KEYWORD_LENGTH, "搜索关键字长度不能超过" + MAX_KEYWORD_LENGTH);
+        Assert.isTrue(itemPinyinIndex.isReady(), "物品拼音索引正在构建，请稍后重试");
+        int size = searchLimit(limit);
 
+        List<Integer> ids = itemPinyinIndex.search(query, size);
+        Map<Integer, Item> itemMap = itemCache.getByIds(ids);
+        List<ItemSearchVO> list = new ArrayList<>(size);
+        for (Integer id : ids) {
+            Item item = itemMap.get(id);
+            if (item == null) {
+                continue;
+            }
+
+            // 索引只比较前10个字符，更长的输入在这里校验
+            List<PinyinUtils.Unit> units = PinyinUtils.toUnits(item.getName());
+            int[] match = PinyinUtils.find(units, query);
+            if (match == null) {
+                continue;
+            }
+
+            ItemSearchVO vo = new ItemSearchVO();
+            vo.setItemId(item.getId());
+            vo.setName(item.getName());
+            vo.setItemNumber(item.getItemNumber());
+            vo.setStockQuantity(currentStock(item));
+            vo.setHighlights(List.of(PinyinUtils.highlight(item.getName(), units, match)));
+            list.add(vo);
+            if (list.size() >= size) {
+                break;
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 输入联想：查询编号或名称以指定前缀开头的物品
+     *
+     * @param prefix 前缀，不区分大小写
+     * @param limit  最多返回的数量
+     * @return 联想结果，包含当前库存
+     */
+    @Override
+    public List<ItemSuggestVO> suggest(String prefix, Integer limit) {
+        prefix = FormatUtils.trimToNull(prefix);
+        if (prefix == null || !itemSuggestIndex.isReady()) {
+            // 每次按键都会调用，索引未就绪时返回空结果，不回退到数据库
+            return new ArrayList<>();
+        }
+        Assert.isTrue(prefix.length() <= MAX_KEYWORD_LENGTH, "搜索关键字长度不能超过" + MAX_KEYWORD_LENGTH);
+
+        List<Integer> ids = itemSuggestIndex.suggest(prefix, searchLimit(limit));
+        Map<Integer, Item> itemMap = itemCache.getByIds(ids);
+        List<ItemSuggestVO> list = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Item item = itemMap.get(id);
+            if (item == null) {
+                continue;
+            }
+
+            ItemSuggestVO vo = new ItemSuggestVO();
+            vo.setItemId(item.getId());
+            vo.setItemNumber(item.getItemNumber());
+            vo.setName(item.getName());
+            vo.setUnit(item.getUnit());
+            vo.setStockQuantity(currentStock(item));
+            list.add(vo);
+        }
+        return list;
+    }
+
+    /**
+     * 物品当前库存，账本模式下数据库中的库存可能落后，以内存账本为准
+     */
+    private Integer currentStock(Item item) {
+        Integer stock = stockLedger.isEnabled() ? stockLedger.getStock(item.getId()) : null;
+        return stock == null ? item.getStockQuantity() : stock;
+    }
+
+    private int searchLimit(Integer limit) {
+        int size = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        Assert.isTrue(size > 0 && size <= MAX_SEARCH_LIMIT, "返回数量必须在1到" + MAX_SEARCH_LIMIT + "之间");
+        return size;
+    }
+
+    private List<ItemVO> convertToVOList(List<Item> list) {
         // 提取list列表中的操作人字段，到一个Set集合中去
         Set<Integer> adminIds = list.stream()
                 .map(Item::getOperatorId)
@@ -80,8 +314,7 @@ public class ItemServiceImpl implements ItemService {
             ItemVO vo = ItemUtils.convertToVO(item, nameMap);
             voList.add(vo);
         }
-
-        return new Page<>(pageUtils.getCurrent(), pageUtils.getPageSize(), pageUtils.getTotal(), voList);
+        return voList;
     }
 
     /**
@@ -97,7 +330,7 @@ public class ItemServiceImpl implements ItemService {
         ItemUtils.validateItem(itemDTO);
         
         // 检查物品编号是否已存在
-        Item existItem = itemMapper.getByItemNumber(itemDTO.getItemNumber());
+        Item existItem = itemCache.getByItemNumber(itemDTO.getItemNumber());
         Assert.isNull(existItem, "物品编号已存在: " + itemDTO.getItemNumber());
         
         // 创建实体对象，用以保存到数据库
@@ -110,9 +343,182 @@ public class ItemServiceImpl implements ItemService {
         item.setOperatorId(token.getUserId());
         // 调用DAO方法保存到数据库表
         itemMapper.insert(item);
+        stockLedger.register(item.getId(), 0);
+        itemSearchIndex.update(item);
+        itemPinyinIndex.update(item);
+        itemSuggestIndex.update(item);
+        pageCountCache.invalidate(PageCountCache.ITEM);
         return item.getId();
     }
 
+    /**
+     * 从Excel或CSV文件批量导入物品
+     * 先读出全部行，再并行校验各行并与预先加载的物品编号比对，最后按批用多行insert写入，
+     * 写入完成后一次性更新各索引。有错误的行不导入，不影响其余行。
+     *
+     * @param inputStream 文件内容
+     * @param fileName    文件名，支持xls、xlsx和csv
+     * @return 导入结果
+     * @throws Exception 文件读取异常
+     */
+    @Override
+    public ItemImportResultVO importItem(InputStream inputStream, String fileName) throws Exception {
+        Assert.hasText(fileName, "文件名不能为空");
+        Token token = ThreadContextHolder.getToken();
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put("物品名称", "name");
+        map.put("物品编号", "itemNumber");
+        map.put("单位", "unit");
+        map.put("规格", "specification");
+        map.put("预警阈值", "threshold");
+
+        List<ImportRow> rows = new ArrayList<>();
+        XlsUtils.importFromExcel(inputStream, fileName, (ItemImportDTO dto, int rowNum) -> {
+            Assert.isTrue(rows.size() < importMaxRows, "一次最多导入" + importMaxRows + "个物品");
+            rows.add(new ImportRow(rowNum, dto));
+        }, map, ItemImportDTO.class);
+
+        // 校验只读取共享的编号集合，各行互不影响，可以并行
+        Set<String> existingNumbers = new HashSet<>(itemMapper.listItemNumbers());
+        rows.parallelStream().forEach(row -> validateImportRow(row, existingNumbers, token.getUserId()));
+
+        // 文件内的重复编号按行号顺序检查，保留第一次出现的行
+        Map<String, Integer> firstRows = new HashMap<>();
+        for (ImportRow row : rows) {
+            if (row.error == null) {
+                Integer first = firstRows.putIfAbsent(row.item.getItemNumber(), row.rowNum);
+                if (first != null) {
+                    row.error = "物品编号与第" + first + "行重复: " + row.item.getItemNumber();
+                }
+            }
+        }
+
+        List<Item> inserted = new ArrayList<>();
+        try {
+            List<ImportRow> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            for (ImportRow row : rows) {
+                if (row.error != null) {
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() >= IMPORT_BATCH_SIZE) {
+                    insertImportBatch(batch, inserted);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                insertImportBatch(batch, inserted);
+            }
+        } finally {
+            // 中途失败时已写入的物品也要进入索引
+            inserted.forEach(item -> stockLedger.register(item.getId(), 0));
+            itemSearchIndex.updateAll(inserted);
+            itemPinyinIndex.updateAll(inserted);
+            itemSuggestIndex.updateAll(inserted);
+            pageCountCache.invalidate(PageCountCache.ITEM);
+        }
+
+        List<ItemImportErrorVO> errors = new ArrayList<>();
+        for (ImportRow row : rows) {
+            if (row.error != null && errors.size() < MAX_IMPORT_ERRORS) {
+                ItemImportErrorVO error = new ItemImportErrorVO();
+                error.setRowNum(row.rowNum);
+                error.setItemNumber(row.dto.getItemNumber());
+                error.setMessage(row.error);
+                errors.add(error);
+            }
+        }
+
+        ItemImportResultVO result = new ItemImportResultVO();
+        result.setTotal(rows.size());
+        result.setSuccessCount(inserted.size());
+        result.setFailedCount(rows.size() - inserted.size());
+        result.setErrors(errors);
+        return result;
+    }
+
+    /**
+     * 校验导入的一行并转换为物品，失败原因记录在行上
+     */
+    private static void validateImportRow(ImportRow row, Set<String> existingNumbers, Integer operatorId) {
+        ItemImportDTO dto = row.dto;
+        ItemDTO itemDTO = new ItemDTO();
+        itemDTO.setName(FormatUtils.trimToNull(dto.getName()));
+        itemDTO.setItemNumber(FormatUtils.trimToNull(dto.getItemNumber()));
+        itemDTO.setUnit(FormatUtils.trimToNull(dto.getUnit()));
+        itemDTO.setSpecification(FormatUtils.trimToNull(dto.getSpecification()));
+        String threshold = FormatUtils.trimToNull(dto.getThreshold());
+        try {
+            itemDTO.setThreshold(threshold == null ? null : Integer.valueOf(threshold));
+        } catch (NumberFormatException ex) {
+            row.error = "库存阈值必须是整数: " + threshold;
+            return;
+        }
+
+        try {
+            ItemUtils.validateItem(itemDTO);
+        } catch (IllegalArgumentException ex) {
+            row.error = ex.getMessage();
+            return;
+        }
+        if (existingNumbers.contains(itemDTO.getItemNumber())) {
+            row.error = "物品编号已存在: " + itemDTO.getItemNumber();
+            return;
+        }
+
+        Item item = new Item();
+        BeanUtils.copyProperties(itemDTO, item);
+        item.setStockQuantity(0);
+        item.setCreatedAt(new Date());
+        item.setUpdatedAt(item.getCreatedAt());
+        item.setOperatorId(operatorId);
+        row.item = item;
+    }
+
+    /**
+     * 用一条语句写入一批物品；与唯一索引冲突时（如其他人刚新增了相同编号）整条语句回滚，
+     * 改为逐条写入，找出冲突的行
+     */
+    private void insertImportBatch(List<ImportRow> batch, List<Item> inserted) {
+        try {
+            itemMapper.insertBatch(batch.stream().map(row -> row.item).collect(Collectors.toList()));
+            batch.forEach(row -> inserted.add(row.item));
+            return;
+        } catch (DuplicateKeyException ex) {
+            // 逐条写入
+        }
+
+        for (ImportRow row : batch) {
+            try {
+                itemMapper.insert(row.item);
+                inserted.add(row.item);
+            } catch (DuplicateKeyException ex) {
+                row.error = "物品编号已存在: " + row.item.getItemNumber();
+            }
+        }
+    }
+
+    /**
+     * 导入文件中的一行及其校验结果
+     */
+    private static class ImportRow {
+        private final int rowNum;
+
+        private final ItemImportDTO dto;
+
+        /**
+         * 校验通过后转换得到的物品
+         */
+        private Item item;
+
+        private String error;
+
+        ImportRow(int rowNum, ItemImportDTO dto) {
+            this.rowNum = rowNum;
+            this.dto = dto;
+        }
+    }
+
     /**
      * 根据ID获取物品信息
      *
@@ -122,7 +528,7 @@ public class ItemServiceImpl implements ItemService {
     @Override
     public ItemDTO getById(Integer id) {
         Assert.notNull(id, "物品ID不能为空");
-        Item item = itemMapper.selectByPrimaryKey(id);
+        Item item = itemCache.getById(id);
         Assert.notNull(item, "物品不存在，ID为: " + id);
         ItemDTO dto = new ItemDTO();
         BeanUtils.copyProperties(item, dto);
@@ -147,7 +553,7 @@ public class ItemServiceImpl implements ItemService {
         
         // 如果编号变了，检查新编号是否已存在
         if (!item.getItemNumber().equals(itemDTO.getItemNumber())) {
-            Item existItem = itemMapper.getByItemNumber(itemDTO.getItemNumber());
+            Item existItem = itemCache.getByItemNumber(itemDTO.getItemNumber());
             Assert.isNull(existItem, "物品编号已存在: " + itemDTO.getItemNumber());
         }
         
@@ -156,6 +562,13 @@ public class ItemServiceImpl implements ItemService {
         item.setUpdatedAt(new Date());
         item.setOperatorId(token.getUserId());
         itemMapper.updateByPrimaryKey(item);
+        itemCache.invalidate(item.getId());
+        itemSearchIndex.update(item);
+        itemPinyinIndex.update(item);
+        itemSuggestIndex.update(item);
+        // 名称和编号是物品和出入库记录的查询条件
+        pageCountCache.invalidate(PageCountCache.ITEM);
+        pageCountCache.invalidate(PageCountCache.TRANSACTION);
         return item.getId();
     }
 
@@ -168,41 +581,82 @@ public class ItemServiceImpl implements ItemService {
     public void deleteByIds(List<Integer> ids) {
         Assert.notEmpty(ids, "物品ID列表不能为空");
         itemMapper.deleteByIds(ids);
+        stockLedger.remove(ids);
+        itemCache.invalidateAll(ids);
+        itemSearchIndex.delete(ids);
+        itemPinyinIndex.delete(ids);
+        itemSuggestIndex.delete(ids);
+        // 出入库记录随物品级联删除
+        pageCountCache.invalidate(PageCountCache.ITEM);
+        pageCountCache.invalidate(PageCountCache.TRANSACTION);
     }
     
     /**
      * 导出物品信息到Excel
      *
-     * @param queryDTO 查询条件
-     * @return Excel工作簿
+     * @param queryDTO     查询条件
+     * @param outputStream 输出流
+     * @param progress     导出进度
      */
     @Override
-    public Workbook export(ItemQueryDTO queryDTO) {
-        // Prepare query (apply fuzzy search terms)
+    @Transactional(readOnly = true)
+    public void export(ItemQueryDTO queryDTO, OutputStream outputStream, ExportProgress progress) {
         queryDTO.setName(FormatUtils.makeFuzzySearchTerm(queryDTO.getName()));
         queryDTO.setItemNumber(FormatUtils.makeFuzzySearchTerm(queryDTO.getItemNumber()));
+        if (progress != ExportProgress.NONE) {
+            progress.setTotal(itemMapper.count(queryDTO));
+        }
 
-        // Fetch ALL items matching the query and order
-        List<Item> itemList = itemMapper.listAll(queryDTO);
+        Map<String, String> map = exportFieldMap();
 
-        // Prepare data for export
-        List<ItemVO> voList = new ArrayList<>();
-        if (!itemList.isEmpty()) {
-            // Get operator names
-            Set<Integer> adminIds = itemList.stream()
-                    .map(Item::getOperatorId)
-                    .filter(id -> id != null)
-                    .collect(Collectors.toSet());
-            Map<Integer, String> nameMap = adminService.getNameMap(adminIds);
-            
-            // Convert Item to ItemVO
-            for (Item item : itemList) {
-                ItemVO vo = ItemUtils.convertToVO(item, nameMap);
-                voList.add(vo);
-            }
+        // 流式结果集读完之前同一连接上不能执行其他查询，操作人姓名在打开游标前一次查出
+        Map<Integer, String> nameMap = adminService.getNameMap(new HashSet<>(itemMapper.listOperatorIds()));
+
+        // 游标逐行读取，每攒够一批就转换并写出，内存中只保留一批数据
+        try (Cursor<Item> cursor = itemMapper.cursorAll(queryDTO)) {
+            Iterator<Item> iterator = cursor.iterator();
+            XlsUtils.exportToExcel(outputStream, page -> {
+                List<Item> list = new ArrayList<>(EXPORT_BATCH_SIZE);
+                while (list.size() < EXPORT_BATCH_SIZE && iterator.hasNext()) {
+                    list.add(iterator.next());
+                }
+                progress.addProcessed(list.size());
+                List<ItemVO> voList = new ArrayList<>(list.size());
+                list.forEach(item -> voList.add(ItemUtils.convertToVO(item, nameMap)));
+                return voList;
+            }, map);
+        } catch (IOException ex) {
+            throw new RuntimeException("关闭物品游标失败", ex);
         }
+    }
 
-        // Define Excel column mapping
+    /**
+     * 以CSV或NDJSON格式流式导出物品，按ID排序
+     *
+     * @param queryDTO     查询条件
+     * @param format       导出格式，csv或ndjson
+     * @param outputStream 输出流
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportText(ItemQueryDTO queryDTO, String format, OutputStream outputStream) {
+        queryDTO.setName(FormatUtils.makeFuzzySearchTerm(queryDTO.getName()));
+        queryDTO.setItemNumber(FormatUtils.makeFuzzySearchTerm(queryDTO.getItemNumber()));
+
+        // 游标读出一行写出一行，操作人姓名在SQL中关联，不需要攒批
+        RowWriter writer = RowWriter.of(format, outputStream, exportFieldMap());
+        try (Cursor<ItemVO> cursor = itemMapper.cursorForExport(queryDTO)) {
+            cursor.forEach(writer::write);
+        } catch (IOException ex) {
+            throw new RuntimeException("关闭物品游标失败", ex);
+        }
+        writer.finish();
+    }
+
+    /**
+     * 导出的列：属性名到列标题的映射
+     */
+    private static Map<String, String> exportFieldMap() {
         Map<String, String> map = new LinkedHashMap<>();
         map.put("id", "物品ID");
         map.put("name", "物品名称");
@@ -213,18 +667,6 @@ public class ItemServiceImpl implements ItemService {
         map.put("threshold", "预警阈值");
         map.put("updatedAt", "更新时间");
         map.put("operatorName", "操作人");
-
-        // Use XlsUtils to export the complete list
-        // We pass a lambda that simply returns the full list for the first (and only) page
-        final AtomicBoolean dataFetched = new AtomicBoolean(false);
-        Workbook workbook = XlsUtils.exportToExcel(page -> {
-            if (dataFetched.get()) {
-                return null; // Return null after the first call
-            }
-            dataFetched.set(true);
-            return voList; // Return the complete list
-        }, map);
-
-        return workbook;
+        return map;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -4,6 +4,7 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
+import redlib.backend.cache.PageCountCache;
 import redlib.backend.dao.LoginLogMapper;
 import redlib.backend.dto.query.LoginLogQueryDTO;
 import redlib.backend.model.LoginLog;
@@ -21,19 +22,24 @@ public class LoginLogServiceImpl implements LoginLogService {
     @Autowired
     private LoginLogMapper loginLogMapper;
 
+    @Autowired
+    private PageCountCache pageCountCache;
+
     @Override
     public Page<LoginLogVO> list(LoginLogQueryDTO queryDTO) {
         Assert.notNull(queryDTO, "查询参数不能为空");
         FormatUtils.trimFieldToNull(queryDTO);
         queryDTO.setOrderBy(FormatUtils.formatOrderBy(queryDTO.getOrderBy()));
 
-        Integer total = loginLogMapper.count(queryDTO);
-        PageUtils pageUtils = new PageUtils(queryDTO.getCurrent(), queryDTO.getPageSize(), total);
+        Integer total = pageCountCache.count(PageCountCache.LOGIN_LOG, "login_log", queryDTO, queryDTO.getCountMode(),
+                loginLogMapper::count);
+        PageUtils pageUtils = PageUtils.of(queryDTO.getCurrent(), queryDTO.getPageSize(), total);
         if (pageUtils.isDataEmpty()) {
             return pageUtils.getNullPage();
         }
 
         List<LoginLog> list = loginLogMapper.list(queryDTO, pageUtils.getOffset(), pageUtils.getLimit());
+        boolean hasNext = pageUtils.hasNext(list);
         List<LoginLogVO> voList = list.stream()
                 .map(item -> {
                     LoginLogVO vo = new LoginLogVO();
@@ -41,6 +47,8 @@ public class LoginLogServiceImpl implements LoginLogService {
                     return vo;
                 })
                 .collect(Collectors.toList());
-        return new Page<>(pageUtils.getCurrent(), pageUtils.getPageSize(), pageUtils.getTotal(), voList);
+        Page<LoginLogVO> page = new Page<>(pageUtils.getCurrent(), pageUtils.getPageSize(), pageUtils.getTotal(), voList);
+        page.setHasNext(hasNext);
+        return page;
     }
 }
@@ -0,0 +1,128 @@
+package redlib.backend.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+import redlib.backend.dto.ReservationDTO;
+import redlib.backend.dto.TransactionDTO;
+import redlib.backend.model.Reservation;
+import redlib.backend.model.Token;
+import redlib.backend.service.ReservationService;
+import redlib.backend.service.TransactionService;
+import redlib.backend.service.stock.ReservationRegistry;
+import redlib.backend.utils.ThreadContextHolder;
+import redlib.backend.vo.ReservationVO;
+import redlib.backend.vo.StockAvailabilityVO;
+
+import java.util.Objects;
+
+/**
+ * 库存预留服务实现类
+ */
+@Service
+@Slf4j
+public class ReservationServiceImpl implements ReservationService {
+    @Autowired
+    private ReservationRegistry reservationRegistry;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    /**
+     * 预留库存
+     *
+     * @param reservationDTO 预留信息
+     * @return 预留结果
+     */
+    @Override
+    public ReservationVO reserve(ReservationDTO reservationDTO) {
+        Assert.notNull(reservationDTO, "预留信息不能为空");
+        Assert.notNull(reservationDTO.getItemId(), "物品ID不能为空");
+        Assert.notNull(reservationDTO.getQuantity(), "预留数量不能为空");
+        Assert.isTrue(reservationDTO.getQuantity() > 0, "预留数量必须大于0");
+
+        Token token = ThreadContextHolder.getToken();
+        Reservation reservation = reservationRegistry.reserve(reservationDTO.getItemId(), reservationDTO.getQuantity(),
+                reservationDTO.getTtl(), token.getUserId(), reservationDTO.getRemark());
+        log.info("预留库存, 预留ID: {}, 物品ID: {}, 数量: {}", reservation.getId(), reservation.getItemId(), reservation.getQuantity());
+
+        ReservationVO vo = new ReservationVO();
+        BeanUtils.copyProperties(reservation, vo);
+        return vo;
+    }
+
+    /**
+     * 确认预留，先释放预留再出库，出库失败时恢复预留，只有预留人或root用户可以确认
+     *
+     * @param id 预留ID
+     * @return 出入库记录ID
+     */
+    @Override
+    public Integer confirm(Long id) {
+        Reservation reservation = removeOwned(id);
+
+        TransactionDTO transactionDTO = new TransactionDTO();
+        transactionDTO.setItemId(reservation.getItemId());
+        transactionDTO.setQuantity(reservation.getQuantity());
+        transactionDTO.setRemark(reservation.getRemark() == null ? "确认库存预留" + id : reservation.getRemark());
+        // 确认请求被重试时不会重复出库
+        transactionDTO.setIdempotencyKey("reservation-" + id);
+        try {
+            Integer transactionId = transactionService.checkOut(transactionDTO);
+            log.info("确认库存预留, 预留ID: {}, 出库记录ID: {}", id, transactionId);
+            return transactionId;
+        } catch (RuntimeException ex) {
+            reservationRegistry.restore(reservation);
+            throw ex;
+        }
+    }
+
+    /**
+     * 释放预留，只有预留人或root用户可以释放
+     *
+     * @param id 预留ID
+     */
+    @Override
+    public void release(Long id) {
+        Reservation reservation = removeOwned(id);
+        log.info("释放库存预留, 预留ID: {}, 物品ID: {}, 数量: {}", id, reservation.getItemId(), reservation.getQuantity());
+    }
+
+    /**
+     * 获取物品的可用库存
+     *
+     * @param itemId 物品ID
+     * @return 当前库存、已预留数量和可用库存
+     */
+    @Override
+    public StockAvailabilityVO getAvailability(Integer itemId) {
+        Assert.notNull(itemId, "物品ID不能为空");
+        Integer stock = reservationRegistry.getStock(itemId);
+        Assert.notNull(stock, "物品不存在，ID为: " + itemId);
+
+        StockAvailabilityVO vo = new StockAvailabilityVO();
+        vo.setItemId(itemId);
+        vo.setStockQuantity(stock);
+        vo.setReserved(reservationRegistry.getReserved(itemId));
+        vo.setAvailable(stock - vo.getReserved());
+        return vo;
+    }
+
+    /**
+     * 校验当前用户是预留人或root用户后移除预留
+     */
+    private Reservation removeOwned(Long id) {
+        Assert.notNull(id, "预留ID不能为空");
+        Token token = ThreadContextHolder.getToken();
+        Reservation reservation = reservationRegistry.get(id);
+        Assert.notNull(reservation, "预留不存在或已过期，ID为: " + id);
+        Assert.isTrue("root".equalsIgnoreCase(token.getUserCode()) || Objects.equals(reservation.getUserId(), token.getUserId()),
+                "只能操作自己的预留");
+
+        reservation = reservationRegistry.remove(id);
+        Assert.notNull(reservation, "预留不存在或已过期，ID为: " + id);
+        return reservation;
+    }
+}
@@ -7,6 +7,7 @@ import eu.bitwalker.useragentutils.Version;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
+import redlib.backend.cache.PageCountCache;
 import redlib.backend.dao.AdminMapper;
 import redlib.backend.dao.AdminPrivMapper;
 import redlib.backend.dao.LoginLogMapper;
@@ -31,6 +32,9 @@ public class TokenServiceImpl implements TokenService {
     @Autowired
     private LoginLogMapper loginLogMapper;
 
+    @Autowired
+    private PageCountCache pageCountCache;
+
     @Autowired
     private AdminPrivMapper adminPrivMapper;
 
@@ -91,6 +95,7 @@ public class TokenServiceImpl implements TokenService {
             loginLog.setBrowser(token.getBrowser());
             loginLog.setOs(token.getOs());
             loginLogMapper.insert(loginLog);
+            pageCountCache.invalidate(PageCountCache.LOGIN_LOG);
 
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -1,35 +1,62 @@
 package redlib.backend.service.impl;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
-import org.springframework.context.event.ContextRefreshedEvent;
-import org.springframework.context.event.EventListener;
+import org.springframework.util.StringUtils;
+import redlib.backend.cache.ItemCache;
+import redlib.backend.cache.PageCountCache;
 import redlib.backend.dao.ItemMapper;
 import redlib.backend.dao.TransactionMapper;
 import redlib.backend.dto.TransactionDTO;
 import redlib.backend.dto.query.TransactionQueryDTO;
 import redlib.backend.model.Item;
 import redlib.backend.model.Page;
+import redlib.backend.model.PageCursor;
+import redlib.backend.model.StockChange;
 import redlib.backend.model.Token;
 import redlib.backend.model.Transaction;
 import redlib.backend.service.AdminService;
 import redlib.backend.service.TransactionService;
+import redlib.backend.service.export.ExportProgress;
+import redlib.backend.service.export.PartitionedReader;
+import redlib.backend.service.stock.IdempotencyRegistry;
+import redlib.backend.service.stock.ReservationRegistry;
+import redlib.backend.service.stock.StockLedger;
+import redlib.backend.service.stock.StockOperationCoalescer;
+import redlib.backend.service.stock.TransactionGroupCommitter;
 import redlib.backend.service.utils.TransactionUtils;
+import redlib.backend.utils.CursorUtils;
 import redlib.backend.utils.FormatUtils;
 import redlib.backend.utils.PageUtils;
+import redlib.backend.utils.RowWriter;
 import redlib.backend.utils.ThreadContextHolder;
+import redlib.backend.utils.XlsUtils;
+import redlib.backend.vo.TransactionResultVO;
 import redlib.backend.vo.TransactionVO;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 /**
@@ -38,6 +65,28 @@ import java.util.stream.Collectors;
 @Service
 @Slf4j
 public class TransactionServiceImpl implements TransactionService {
+    /**
+     * 批量操作时每条多行插入语句包含的记录数
+     */
+    private static final int BATCH_INSERT_SIZE = 500;
+
+    /**
+     * 导出时每批查询的记录数
+     */
+    private static final int EXPORT_BATCH_SIZE = 2000;
+
+    /**
+     * 导出时同时查询的月份数量
+     */
+    @Value("${warehouse.transaction-export.parallelism:4}")
+    private int exportParallelism;
+
+    /**
+     * 所有导出任务合计同时执行的查询数量，应明显小于数据库连接池大小
+     */
+    @Value("${warehouse.transaction-export.max-queries:4}")
+    private int exportMaxQueries;
+
     @Autowired
     private TransactionMapper transactionMapper;
     
@@ -47,8 +96,43 @@ public class TransactionServiceImpl implements TransactionService {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private TransactionGroupCommitter transactionGroupCommitter;
+
+    @Autowired
+    private StockOperationCoalescer stockOperationCoalescer;
+
+    @Autowired
+    private IdempotencyRegistry idempotencyRegistry;
+
+    @Autowired
+    private ReservationRegistry reservationRegistry;
+
+    @Autowired
+    private PageCountCache pageCountCache;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Semaphore exportPermits;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        exportPermits = new Semaphore(Math.max(exportMaxQueries, 1));
+    }
+
     /**
      * 分页查询出入库记录
+     * cursor不为null时使用游标分页，否则按页码分页
      *
      * @param queryDTO 查询条件
      * @return 分页结果
@@ -61,17 +145,175 @@ public class TransactionServiceImpl implements TransactionService {
 
         queryDTO.setItemName(FormatUtils.makeFuzzySearchTerm(queryDTO.getItemName()));
         queryDTO.setItemNumber(FormatUtils.makeFuzzySearchTerm(queryDTO.getItemNumber()));
-        Integer size = transactionMapper.count(queryDTO);
-        PageUtils pageUtils = new PageUtils(queryDTO.getCurrent(), queryDTO.getPageSize(), size);
+        if (queryDTO.getCursor() != null) {
+            return listByCursor(queryDTO);
+        }
 
-        if (size == 0) {
+        Integer size = pageCountCache.count(PageCountCache.TRANSACTION, "transactions", queryDTO, queryDTO.getCountMode(),
+                transactionMapper::count);
+        PageUtils pageUtils = PageUtils.of(queryDTO.getCurrent(), queryDTO.getPageSize(), size);
+
+        if (size != null && size == 0) {
             // 没有命中，则返回空数据。
             return pageUtils.getNullPage();
         }
 
         // 查询数据
         List<Transaction> list = transactionMapper.list(queryDTO, pageUtils.getOffset(), pageUtils.getLimit());
+        boolean hasNext = pageUtils.hasNext(list);
+        Page<TransactionVO> page = new Page<>(pageUtils.getCurrent(), pageUtils.getPageSize(), pageUtils.getTotal(), convertToVOList(list));
+        page.setHasNext(hasNext);
+
+        // 同时返回游标，跳页后可以改用游标继续翻页
+        if (!list.isEmpty()) {
+            if (pageUtils.getCurrent() > 1) {
+                page.setPrevCursor(makeCursor(true, list.get(0)));
+            }
+            if (hasNext) {
+                page.setNextCursor(makeCursor(false, list.get(list.size() - 1)));
+            }
+        }
+
+        return page;
+    }
+
+    /**
+     * 按时间范围导出出入库记录到Excel，按时间正序
+     * 日期范围按自然月拆成分区，多个分区并行查询，再按分区顺序写入同一个流式工作簿，
+     * 内存中最多保留正在读取的几个分区的少量批次。
+     *
+     * @param queryDTO     查询条件，必须指定开始和结束日期
+     * @param outputStream 输出流
+     * @param progress     导出进度
+     */
+    @Override
+    public void export(TransactionQueryDTO queryDTO, OutputStream outputStream, ExportProgress progress) {
+        Assert.notNull(queryDTO.getStartDate(), "开始日期不能为空");
+        Assert.notNull(queryDTO.getEndDate(), "结束日期不能为空");
+        Assert.isTrue(!queryDTO.getStartDate().after(queryDTO.getEndDate()), "开始日期不能晚于结束日期");
+        queryDTO.setItemName(FormatUtils.makeFuzzySearchTerm(queryDTO.getItemName()));
+        queryDTO.setItemNumber(FormatUtils.makeFuzzySearchTerm(queryDTO.getItemNumber()));
+        if (progress != ExportProgress.NONE) {
+            progress.setTotal(transactionMapper.count(queryDTO));
+        }
+
+        try (PartitionedReader<Date[], TransactionVO> reader = new PartitionedReader<>(monthPartitions(queryDTO),
+                (partition, last) -> transactionMapper.listForExport(queryDTO, partition[0], partition[1],
+                        last == null ? null : new PageCursor(false, last.getOperationTime(), last.getId()), EXPORT_BATCH_SIZE),
+                EXPORT_BATCH_SIZE, exportParallelism, exportPermits)) {
+            XlsUtils.exportToExcel(outputStream, page -> {
+                List<TransactionVO> list = reader.next();
+                progress.addProcessed(list.size());
+                return list;
+            }, exportFieldMap());
+        }
+    }
+
+    /**
+     * 把查询条件的日期范围按自然月拆分，每个分区为[开始, 结束)，结束日期本身包含在最后一个分区内
+     */
+    private static List<Date[]> monthPartitions(TransactionQueryDTO queryDTO) {
+        ZoneId zone = ZoneId.systemDefault();
+        Date end = new Date(queryDTO.getEndDate().getTime() + 1);
+        List<Date[]> partitions = new ArrayList<>();
+        Date from = queryDTO.getStartDate();
+        while (from.before(end)) {
+            LocalDate nextMonth = LocalDate.ofInstant(from.toInstant(), zone).withDayOfMonth(1).plusMonths(1);
+            Date to = Date.from(nextMonth.atStartOfDay(zone).toInstant());
+            if (to.after(end)) {
+                to = end;
+            }
+            partitions.add(new Date[]{from, to});
+            from = to;
+        }
+        return partitions;
+    }
+
+    /**
+     * 导出的列：属性名到列标题的映射
+     */
+    private static Map<String, String> exportFieldMap() {
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put("id", "记录ID");
+        map.put("itemId", "物品ID");
+        map.put("itemName", "物品名称");
+        map.put("itemNumber", "物品编号");
+        map.put("unit", "单位");
+        map.put("specification", "规格");
+        map.put("operationType", "操作类型");
+        map.put("quantity", "数量");
+        map.put("postStock", "操作后库存");
+        map.put("handlerName", "经手人");
+        map.put("remark", "备注");
+        map.put("operationTime", "操作时间");
+        return map;
+    }
+
+    /**
+     * 以CSV或NDJSON格式流式导出出入库记录，按时间倒序
+     *
+     * @param queryDTO     查询条件
+     * @param format       导出格式，csv或ndjson
+     * @param outputStream 输出流
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportText(TransactionQueryDTO queryDTO, String format, OutputStream outputStream) {
+        queryDTO.setItemName(FormatUtils.makeFuzzySearchTerm(queryDTO.getItemName()));
+        queryDTO.setItemNumber(FormatUtils.makeFuzzySearchTerm(queryDTO.getItemNumber()));
+
+        // 物品信息和经手人姓名在SQL中关联，游标读出一行写出一行
+        RowWriter writer = RowWriter.of(format, outputStream, exportFieldMap());
+        try (Cursor<TransactionVO> cursor = transactionMapper.cursorForExport(queryDTO)) {
+            cursor.forEach(writer::write);
+        } catch (IOException ex) {
+            throw new RuntimeException("关闭出入库记录游标失败", ex);
+        }
+        writer.finish();
+    }
+
+    /**
+     * 游标分页查询出入库记录，按(operation_time, id)定位，多取一条用于判断是否还有更多记录
+     */
+    private Page<TransactionVO> listByCursor(TransactionQueryDTO queryDTO) {
+        int pageSize = PageUtils.pageSize(queryDTO.getPageSize());
+        PageCursor cursor = queryDTO.getCursor().isEmpty() ? null : CursorUtils.decode(queryDTO.getCursor());
+        List<Transaction> list = transactionMapper.listByCursor(queryDTO, cursor, pageSize + 1);
+        boolean hasMore = list.size() > pageSize;
+        if (hasMore) {
+            list = list.subList(0, pageSize);
+        }
+
+        boolean backward = cursor != null && cursor.isBackward();
+        if (backward) {
+            // 向前翻页时按时间正序取出，翻转为页面显示的倒序
+            list = new ArrayList<>(list);
+            Collections.reverse(list);
+        }
+
+        Page<TransactionVO> page = new Page<>(queryDTO.getCurrent(), pageSize, -1, convertToVOList(list));
+        page.setHasNext(backward || hasMore);
+        if (!list.isEmpty()) {
+            // 向后翻页时来源页在前面，向前翻页时来源页在后面
+            if (backward ? hasMore : cursor != null) {
+                page.setPrevCursor(makeCursor(true, list.get(0)));
+            }
+            if (backward || hasMore) {
+                page.setNextCursor(makeCursor(false, list.get(list.size() - 1)));
+            }
+        }
+
+        return page;
+    }
+
+    private String makeCursor(boolean backward, Transaction transaction) {
+        return CursorUtils.encode(new PageCursor(backward, transaction.getOperationTime(), transaction.getId()));
+    }
 
+    /**
+     * 出入库记录转VO对象，批量补充物品信息和经手人姓名
+     */
+    private List<TransactionVO> convertToVOList(List<Transaction> list) {
         // 提取物品ID和经手人ID
         Set<Integer> itemIds = list.stream().map(Transaction::getItemId).collect(Collectors.toSet());
         Set<Integer> adminIds = list.stream()
@@ -79,14 +321,8 @@ public class TransactionServiceImpl implements TransactionService {
                 .filter(id -> id != null)
                 .collect(Collectors.toSet());
 
-        // 获取物品信息
-        Map<Integer, Item> itemMap = new HashMap<>();
-        for (Integer itemId : itemIds) {
-            Item item = itemMapper.selectByPrimaryKey(itemId);
-            if (item != null) {
-                itemMap.put(itemId, item);
-            }
-        }
+        // 从缓存获取本页涉及的物品信息，未命中的物品一次查询加载
+        Map<Integer, Item> itemMap = itemCache.getByIds(itemIds);
 
         // 获取id到人名的映射
         Map<Integer, String> nameMap = adminService.getNameMap(adminIds);
@@ -99,7 +335,7 @@ public class TransactionServiceImpl implements TransactionService {
             voList.add(vo);
         }
 
-        return new Page<>(pageUtils.getCurrent(), pageUtils.getPageSize(), pageUtils.getTotal(), voList);
+        return voList;
     }
 
     /**
@@ -109,7 +345,6 @@ public class TransactionServiceImpl implements TransactionService {
      * @return 出入库记录ID
      */
     @Override
-    @Transactional
     public Integer checkIn(TransactionDTO transactionDTO) {
         transactionDTO.setOperationType("1");
         return processTransaction(transactionDTO, false);
@@ -122,30 +357,158 @@ public class TransactionServiceImpl implements TransactionService {
      * @return 出入库记录ID
      */
     @Override
-    @Transactional
     public Integer checkOut(TransactionDTO transactionDTO) {
         transactionDTO.setOperationType("0");
         return processTransaction(transactionDTO, true);
     }
     
+    /**
+     * 批量出入库操作
+     * 先按物品id顺序锁定涉及的物品，在内存中按明细顺序计算操作后库存，
+     * 再用一条语句更新所有物品的净库存变动，并分批多行插入出入库记录
+     *
+     * @param transactionDTOList 出入库明细列表
+     * @return 每条明细的操作结果
+     */
+    @Override
+    @Transactional
+    public List<TransactionResultVO> batch(List<TransactionDTO> transactionDTOList) {
+        Assert.notEmpty(transactionDTOList, "出入库明细不能为空");
+        Token token = ThreadContextHolder.getToken();
+
+        // 校验明细，收集涉及的物品
+        Set<Integer> itemIds = new TreeSet<>();
+        boolean[] checkOutFlags = new boolean[transactionDTOList.size()];
+        for (int i = 0; i < transactionDTOList.size(); i++) {
+            TransactionDTO transactionDTO = transactionDTOList.get(i);
+            try {
+                Assert.notNull(transactionDTO, "出入库明细不能为空");
+                checkOutFlags[i] = TransactionUtils.isCheckOut(transactionDTO.getOperationType());
+                TransactionUtils.validateTransaction(transactionDTO, checkOutFlags[i], null);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("第" + (i + 1) + "行: " + ex.getMessage());
+            }
+            itemIds.add(transactionDTO.getItemId());
+        }
+
+        pageCountCache.invalidate(PageCountCache.TRANSACTION);
+        itemCache.invalidateAll(itemIds);
+        if (stockLedger.isEnabled()) {
+            return batchInLedger(transactionDTOList, checkOutFlags, token);
+        }
+
+        // 锁定物品，得到当前库存
+        Map<Integer, Integer> stockMap = new HashMap<>();
+        for (Item item : itemMapper.listByIdsForUpdate(new ArrayList<>(itemIds))) {
+            stockMap.put(item.getId(), item.getStockQuantity());
+        }
+
+        // 按明细顺序计算每条记录的操作后库存
+        Date now = new Date();
+        Map<Integer, Integer> netMap = new LinkedHashMap<>();
+        List<Transaction> records = new ArrayList<>(transactionDTOList.size());
+        for (int i = 0; i < transactionDTOList.size(); i++) {
+            TransactionDTO transactionDTO = transactionDTOList.get(i);
+            Integer stock = stockMap.get(transactionDTO.getItemId());
+            Assert.notNull(stock, "第" + (i + 1) + "行: 物品不存在，ID为: " + transactionDTO.getItemId());
+            int quantity = checkOutFlags[i] ? -transactionDTO.getQuantity() : transactionDTO.getQuantity();
+            Assert.isTrue(stock + quantity >= 0, "第" + (i + 1) + "行: 库存不足，当前库存: " + stock);
+            if (checkOutFlags[i]) {
+                // 出库不能占用已预留的库存
+                int reserved = reservationRegistry.getReserved(transactionDTO.getItemId());
+                Assert.isTrue(stock + quantity >= reserved, "第" + (i + 1) + "行: 可用库存不足，当前库存: " + stock + "，已预留: " + reserved);
+            }
+            stockMap.put(transactionDTO.getItemId(), stock + quantity);
+            netMap.merge(transactionDTO.getItemId(), quantity, Integer::sum);
+
+            Transaction transaction = new Transaction();
+            BeanUtils.copyProperties(transactionDTO, transaction);
+            transaction.setOperationType(checkOutFlags[i] ? "0" : "1");
+            transaction.setHandlerId(token.getUserId());
+            transaction.setPostStock(stock + quantity);
+            transaction.setOperationTime(now);
+            records.add(transaction);
+        }
+
+        // 一条语句更新所有物品的净库存变动
+        List<StockChange> changeList = netMap.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> new StockChange(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        if (!changeList.isEmpty()) {
+            itemMapper.batchUpdateStock(changeList);
+        }
+
+        // 分批多行插入出入库记录
+        for (int from = 0; from < records.size(); from += BATCH_INSERT_SIZE) {
+            transactionMapper.insertBatch(records.subList(from, Math.min(from + BATCH_INSERT_SIZE, records.size())));
+        }
+        log.info("完成批量出入库操作, 明细数量: {}, 涉及物品: {}", records.size(), itemIds.size());
+
+        List<TransactionResultVO> resultList = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            resultList.add(TransactionUtils.convertToResultVO(i + 1, records.get(i)));
+        }
+
+        return resultList;
+    }
+
+    /**
+     * 账本模式下的批量出入库，库存变更在内存账本中原子完成，记录异步写回数据库
+     */
+    private List<TransactionResultVO> batchInLedger(List<TransactionDTO> transactionDTOList, boolean[] checkOutFlags, Token token) {
+        Date now = new Date();
+        List<Transaction> records = new ArrayList<>(transactionDTOList.size());
+        int[] quantities = new int[transactionDTOList.size()];
+        int[] floors = new int[transactionDTOList.size()];
+        for (int i = 0; i < transactionDTOList.size(); i++) {
+            TransactionDTO transactionDTO = transactionDTOList.get(i);
+            quantities[i] = checkOutFlags[i] ? -transactionDTO.getQuantity() : transactionDTO.getQuantity();
+            floors[i] = checkOutFlags[i] ? reservationRegistry.getReserved(transactionDTO.getItemId()) : 0;
+            Transaction transaction = new Transaction();
+            BeanUtils.copyProperties(transactionDTO, transaction);
+            transaction.setOperationType(checkOutFlags[i] ? "0" : "1");
+            transaction.setHandlerId(token.getUserId());
+            transaction.setOperationTime(now);
+            records.add(transaction);
+        }
+
+        stockLedger.applyAll(records, quantities, floors);
+        List<TransactionResultVO> resultList = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            resultList.add(TransactionUtils.convertToResultVO(i + 1, records.get(i)));
+        }
+
+        return resultList;
+    }
+
     /**
      * 处理入库或出库操作
+     * 合并提交和热点合并时库存更新和记录插入在写线程或执行者的事务中完成，请求线程不能开启事务：
+     * 否则每个等待中的请求都占着一个连接，连接池耗尽后执行的线程拿不到连接，所有请求一起超时。
+     * 其余情况在当前线程的事务中执行。
      *
      * @param transactionDTO 操作信息
      * @param isCheckOut 是否是出库操作
      * @return 操作记录ID
      */
     private Integer processTransaction(TransactionDTO transactionDTO, boolean isCheckOut) {
+        if (transactionGroupCommitter.isEnabled() || stockOperationCoalescer.isEnabled()) {
+            return doProcessTransaction(transactionDTO, isCheckOut);
+        }
+        return transactionTemplate.execute(status -> doProcessTransaction(transactionDTO, isCheckOut));
+    }
+
+    /**
+     * 校验并执行入库或出库操作
+     * 带幂等键的请求通过幂等键登记表执行，重复提交时直接返回原始操作的结果
+     */
+    private Integer doProcessTransaction(TransactionDTO transactionDTO, boolean isCheckOut) {
         log.info("开始处理{}操作, 物品ID: {}, 数量: {}", 
                 isCheckOut ? "出库" : "入库", 
                 transactionDTO.getItemId(), 
                 transactionDTO.getQuantity());
-                
-        // 获取物品信息
-        Item item = itemMapper.selectByPrimaryKey(transactionDTO.getItemId());
-        Assert.notNull(item, "物品不存在，ID为: " + transactionDTO.getItemId());
-        log.info("物品当前库存: {}", item.getStockQuantity());
-        
+
         // 获取当前登录用户信息并设置为经手人
         Token token = ThreadContextHolder.getToken();
         if (token != null) {
@@ -153,47 +516,93 @@ public class TransactionServiceImpl implements TransactionService {
             log.info("自动设置经手人ID: {}", token.getUserId());
         }
         
-        // 验证操作信息
-        TransactionUtils.validateTransaction(transactionDTO, isCheckOut, item);
-        
+        // 验证操作信息，库存是否充足由下面的条件更新判断
+        TransactionUtils.validateTransaction(transactionDTO, isCheckOut, null);
+
+        if (StringUtils.hasText(transactionDTO.getIdempotencyKey())) {
+            Transaction request = new Transaction();
+            BeanUtils.copyProperties(transactionDTO, request);
+            Transaction transaction = idempotencyRegistry.execute(transactionDTO.getIdempotencyKey(), request,
+                    () -> applyTransaction(transactionDTO, isCheckOut));
+            return transaction.getId();
+        }
+
+        return applyTransaction(transactionDTO, isCheckOut).getId();
+    }
+
+    /**
+     * 执行入库或出库操作
+     * 库存校验与更新由一条带条件的更新语句原子完成，避免并发出库时先查后改造成超卖
+     *
+     * @param transactionDTO 操作信息
+     * @param isCheckOut 是否是出库操作
+     * @return 出入库记录，包含记录ID和操作后库存
+     */
+    private Transaction applyTransaction(TransactionDTO transactionDTO, boolean isCheckOut) {
         // 更新库存
         int quantity = transactionDTO.getQuantity();
         if (isCheckOut) {
             quantity = -quantity; // 出库为负数
         }
-        log.info("更新库存: {} -> {}", item.getStockQuantity(), item.getStockQuantity() + quantity);
-        int result = itemMapper.updateStock(item.getId(), quantity);
-        Assert.isTrue(result > 0, "更新库存失败");
-        
-        // 重新查询最新的库存
-        Item updatedItem = itemMapper.selectByPrimaryKey(item.getId());
-        log.info("更新后库存: {}", updatedItem.getStockQuantity());
+
+        // 出库后的库存不能低于已预留数量
+        int floor = isCheckOut ? reservationRegistry.getReserved(transactionDTO.getItemId()) : 0;
+        pageCountCache.invalidate(PageCountCache.TRANSACTION);
+        itemCache.invalidate(transactionDTO.getItemId());
+
+        if (stockLedger.isEnabled()) {
+            // 账本模式：在内存账本中校验并变更库存，记录异步写回数据库，此时记录ID尚未生成
+            Transaction transaction = new Transaction();
+            BeanUtils.copyProperties(transactionDTO, transaction);
+            transaction.setOperationTime(new Date());
+            stockLedger.apply(transaction, quantity, floor);
+            log.info("完成{}操作(账本模式), 操作后库存: {}", isCheckOut ? "出库" : "入库", transaction.getPostStock());
+            return transaction;
+        }
+
+        if (transactionGroupCommitter.isEnabled()) {
+            // 合并提交：库存更新和记录插入与其他请求合并在同一个事务中提交
+            Transaction transaction = new Transaction();
+            BeanUtils.copyProperties(transactionDTO, transaction);
+            transaction.setOperationTime(new Date());
+            Integer id = transactionGroupCommitter.submit(transaction, quantity, floor);
+            log.info("完成{}操作(合并提交), 记录ID: {}, 操作后库存: {}", isCheckOut ? "出库" : "入库", id, transaction.getPostStock());
+            return transaction;
+        }
+
+        if (stockOperationCoalescer.isEnabled()) {
+            // 热点合并：同一物品的并发操作合并为一次加锁和一次库存更新
+            Transaction transaction = new Transaction();
+            BeanUtils.copyProperties(transactionDTO, transaction);
+            transaction.setOperationTime(new Date());
+            Integer id = stockOperationCoalescer.submit(transaction, quantity, floor);
+            log.info("完成{}操作(热点合并), 记录ID: {}, 操作后库存: {}", isCheckOut ? "出库" : "入库", id, transaction.getPostStock());
+            return transaction;
+        }
+
+        StockChange stockChange = new StockChange(transactionDTO.getItemId(), quantity, floor);
+        int result = itemMapper.updateStockGuarded(stockChange);
+        if (result == 0) {
+            // 只有失败时才回查物品，区分物品不存在和库存不足
+            Item item = itemMapper.selectByPrimaryKey(transactionDTO.getItemId());
+            Assert.notNull(item, "物品不存在，ID为: " + transactionDTO.getItemId());
+            TransactionUtils.validateTransaction(transactionDTO, isCheckOut, item);
+            Assert.isTrue(item.getStockQuantity() + quantity >= floor,
+                    "可用库存不足，当前库存: " + item.getStockQuantity() + "，已预留: " + floor);
+            throw new RuntimeException("更新库存失败");
+        }
+        log.info("更新后库存: {}", stockChange.getPostStock());
         
         // 创建出入库记录
         Transaction transaction = new Transaction();
         BeanUtils.copyProperties(transactionDTO, transaction);
-        transaction.setPostStock(updatedItem.getStockQuantity()); // 设置操作后库存
+        transaction.setPostStock(stockChange.getPostStock()); // 设置操作后库存
         transaction.setOperationTime(new Date());
         
         // 保存记录
         log.info("保存出入库记录");
         transactionMapper.insert(transaction);
         log.info("完成{}操作, 记录ID: {}", isCheckOut ? "出库" : "入库", transaction.getId());
-        return transaction.getId();
-    }
-
-    /**
-     * 数据迁移：将数据库中文本格式的操作类型转换为数字格式
-     * 在应用启动时自动执行
-     */
-    @EventListener(ContextRefreshedEvent.class)
-    public void migrateOperationTypes() {
-        try {
-            log.info("开始迁移操作类型数据...");
-            int count = transactionMapper.updateAllOperationTypes();
-            log.info("操作类型数据迁移完成，共更新 {} 条记录", count);
-        } catch (Exception e) {
-            log.error("操作类型数据迁移失败", e);
-        }
+        return transaction;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+package redlib.backend.service.migration;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * 数据库版本迁移
+ * 启动时按版本号顺序执行classpath:db/migration下尚未执行过的脚本，脚本文件名格式为V版本号__说明.sql，
+ * 执行记录保存在schema_migration表中，每个版本只执行一次。
+ * 执行前先插入该版本的记录占位，多个实例同时启动时只有插入成功的实例会执行；
+ * 执行失败时记录保留为未成功状态，应用启动失败，需要人工处理后删除该记录再重启。
+ * 已执行的脚本内容被修改时只记录警告，不会重新执行。
+ * 脚本中以"-- check-empty:"开头的注释行是执行前的检查查询，查询有结果时不执行该版本，启动失败并列出查到的数据。
+ */
+@Component
+@Slf4j
+public class SchemaMigrator {
+    private static final String LOCATION = "classpath*:db/migration/V*__*.sql";
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private static final String CHECK_PREFIX = "-- check-empty:";
+
+    /**
+     * 可以忽略的错误码：索引已存在、要删除的索引不存在（MySQL 1061、1091，H2 42111、42112），
+     * 以及H2中ALTER TABLE DROP INDEX要删除的约束不存在（90057），
+     * 用于兼容迁移脚本引入之前已经手工建过索引的数据库，以及建表脚本中本来就没有该索引的数据库
+     */
+    private static final Set<Integer> IGNORABLE_ERRORS = Set.of(1061, 1091, 42111, 42112, 90057);
+
+    @Value("${warehouse.migration.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migration ("
+                + "version INT PRIMARY KEY, "
+                + "description VARCHAR(200) NOT NULL, "
+                + "checksum BIGINT NOT NULL, "
+                + "success TINYINT NOT NULL, "
+                + "execution_ms INT DEFAULT NULL, "
+                + "installed_at DATETIME NOT NULL)");
+
+        Map<Integer, Map<String, Object>> applied = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT version, checksum, success FROM schema_migration")) {
+            applied.put(((Number) row.get("version")).intValue(), row);
+        }
+
+        int count = 0;
+        for (Migration migration : load().values()) {
+            Map<String, Object> row = applied.get(migration.version);
+            if (row == null) {
+                if (apply(migration)) {
+                    count++;
+                }
+                continue;
+            }
+
+            Assert.isTrue(((Number) row.get("success")).intValue() == 1, "数据库迁移V" + migration.version
+                    + "上次执行失败或正在执行，请人工处理后删除schema_migration表中该版本的记录");
+            if (((Number) row.get("checksum")).longValue() != migration.checksum) {
+                log.warn("数据库迁移V{}已执行，但脚本内容已被修改，不会重新执行", migration.version);
+            }
+        }
+
+        log.info("数据库迁移完成，本次执行{}个版本", count);
+    }
+
+    /**
+     * 执行一个版本的迁移
+     *
+     * @return false表示已被其他实例执行
+     */
+    private boolean apply(Migration migration) {
+        // 检查在占位之前执行，检查不通过时不留下失败记录，处理数据后重启即可
+        for (String check : migration.checks) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(check);
+            Assert.state(rows.isEmpty(), "数据库迁移V" + migration.version + "执行前检查未通过，请先处理以下数据: " + rows);
+        }
+
+        try {
+            jdbcTemplate.update("INSERT INTO schema_migration (version, description, checksum, success, installed_at) "
+                            + "VALUES (?, ?, ?, 0, ?)",
+                    migration.version, migration.description, migration.checksum, new Timestamp(System.currentTimeMillis()));
+        } catch (DuplicateKeyException ex) {
+            log.info("数据库迁移V{}已由其他实例执行", migration.version);
+            return false;
+        }
+
+        log.info("开始执行数据库迁移V{}: {}", migration.version, migration.description);
+        long start = System.currentTimeMillis();
+        for (String statement : migration.statements) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (DataAccessException ex) {
+                if (!(ex.getMostSpecificCause() instanceof SQLException sqlException)
+                        || !IGNORABLE_ERRORS.contains(sqlException.getErrorCode())) {
+                    throw new RuntimeException("数据库迁移V" + migration.version + "执行失败: " + statement, ex);
+                }
+                log.warn("数据库迁移V{}忽略语句: {}，原因: {}", migration.version, statement, sqlException.getMessage());
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        jdbcTemplate.update("UPDATE schema_migration SET success = 1, execution_ms = ? WHERE version = ?",
+                elapsed, migration.version);
+        log.info("数据库迁移V{}执行完成，耗时: {}ms", migration.version, elapsed);
+        return true;
+    }
+
+    private TreeMap<Integer, Migration> load() throws IOException {
+        TreeMap<Integer, Migration> migrations = new TreeMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            Matcher matcher = FILE_NAME.matcher(resource.getFilename());
+            Assert.isTrue(matcher.matches(), "迁移脚本文件名格式错误: " + resource.getFilename());
+
+            String script = StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+            CRC32 crc32 = new CRC32();
+            crc32.update(script.getBytes(StandardCharsets.UTF_8));
+
+            Migration migration = new Migration();
+            migration.version = Integer.parseInt(matcher.group(1));
+            migration.description = matcher.group(2).replace('_', ' ');
+            migration.checksum = crc32.getValue();
+            migration.statements = split(script);
+            migration.checks = checks(script);
+            Assert.isNull(migrations.put(migration.version, migration), "迁移脚本版本重复: V" + migration.version);
+        }
+        return migrations;
+    }
+
+    /**
+     * 按行尾的分号拆分语句，忽略--开头的注释行
+     */
+    private static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+
+            builder.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String statement = builder.toString().trim();
+                statements.add(statement.substring(0, statement.length() - 1));
+                builder.setLength(0);
+            }
+        }
+
+        if (!builder.toString().isBlank()) {
+            statements.add(builder.toString().trim());
+        }
+        return statements;
+    }
+
+    /**
+     * 取出以"-- check-empty:"开头的检查查询
+     */
+    private static List<String> checks(String script) {
+        List<String> checks = new ArrayList<>();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith(CHECK_PREFIX)) {
+                checks.add(trimmed.substring(CHECK_PREFIX.length()).trim());
+            }
+        }
+        return checks;
+    }
+
+    /**
+     * 迁移脚本
+     */
+    private static class Migration {
+        private int version;
+
+        private String description;
+
+        private long checksum;
+
+        private List<String> statements;
+
+        private List<String> checks;
+    }
+}
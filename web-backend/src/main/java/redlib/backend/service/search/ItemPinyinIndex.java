@@ -0,0 +1,471 @@
+package redlib.backend.service.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.util.IntroSorter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redlib.backend.dao.ItemMapper;
+import redlib.backend.model.Item;
+import redlib.backend.utils.PinyinUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 物品名称拼音索引
+ * 对名称中从每个读音单元开始的全拼和首字母各生成一个键，键的前10个字符按每字符6位压缩成一个long，
+ * 全部键排序后与物品ID、开始单元一起存成三个平行数组，前缀查询就是在有序数组上二分查找一个区间。
+ * 多音字的各种读音组合都会生成键，每个开始单元最多生成MAX_COMBINATIONS组。
+ * 新增、修改、删除的物品先记在增量表中，查询时增量表覆盖有序数组中同一物品的键，
+ * 增量表达到一定大小后合并进有序数组。启动时在后台从items表构建，构建完成前isReady()返回false。
+ */
+@Component
+@Slf4j
+public class ItemPinyinIndex {
+    /**
+     * 每个键压缩的字符数
+     */
+    static final int KEY_CHARS = 10;
+
+    private static final int BITS_PER_CHAR = 6;
+
+    /**
+     * 名称中参与建索引的最大单元数
+     */
+    private static final int MAX_UNITS = 32;
+
+    private static final int MAX_COMBINATIONS = 16;
+
+    /**
+     * 一次查询最多收集的候选物品数
+     */
+    private static final int MAX_CANDIDATES = 1000;
+
+    private static final int MERGE_THRESHOLD = 1024;
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    @Value("${warehouse.item-pinyin.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private ItemMapper itemMapper;
+
+    private volatile Snapshot snapshot = new Snapshot(new long[0], new int[0], new byte[0], Collections.emptyMap());
+
+    private volatile boolean ready;
+
+    /**
+     * 是否正在构建，构建期间增量表不合并，以便构建完成后覆盖构建时读到的旧数据
+     */
+    private boolean building;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        building = true;
+        Thread thread = new Thread(this::rebuild, "item-pinyin-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 索引是否可用
+     *
+     * @return true表示已开启且构建完成
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 新增或更新物品的索引
+     *
+     * @param item 物品
+     */
+    public void update(Item item) {
+        if (!enabled) {
+            return;
+        }
+
+        ItemKeys itemKeys = buildKeys(item.getName());
+        applyDelta(Collections.singletonMap(item.getId(), itemKeys));
+    }
+
+    /**
+     * 批量新增或更新物品的索引，作为一次增量生成新快照
+     *
+     * @param items 物品列表
+     */
+    public void updateAll(Collection<Item> items) {
+        if (!enabled || items.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, ItemKeys> changes = new HashMap<>();
+        items.forEach(item -> changes.put(item.getId(), buildKeys(item.getName())));
+        applyDelta(changes);
+    }
+
+    /**
+     * 删除物品的索引
+     *
+     * @param ids 物品ID列表
+     */
+    public void delete(Collection<Integer> ids) {
+        if (!enabled) {
+            return;
+        }
+
+        Map<Integer, ItemKeys> changes = new HashMap<>();
+        ids.forEach(id -> changes.put(id, null));
+        applyDelta(changes);
+    }
+
+    /**
+     * 按拼音前缀查询物品，匹配位置靠前的排在前面
+     *
+     * @param query 规范化后的输入，参见{@link PinyinUtils#normalize(String)}
+     * @param limit 最多返回的数量，输入超过10个字符时前10个字符相同的都会返回，需要调用方再校验
+     * @return 物品ID列表
+     */
+    public List<Integer> search(String query, int limit) {
+        long low = pack(query);
+        int length = Math.min(query.length(), KEY_CHARS);
+        long high = low | ((1L << (BITS_PER_CHAR * (KEY_CHARS - length))) - 1);
+
+        Snapshot current = snapshot;
+        Map<Integer, Integer> startMap = new HashMap<>();
+        for (int i = lowerBound(current.keys, low); i < current.keys.length && current.keys[i] <= high; i++) {
+            if (startMap.size() >= MAX_CANDIDATES) {
+                break;
+            }
+            if (!current.delta.containsKey(current.ids[i])) {
+                startMap.merge(current.ids[i], (int) current.starts[i], Math::min);
+            }
+        }
+        current.delta.forEach((id, itemKeys) -> {
+            if (itemKeys == null) {
+                return;
+            }
+            for (int i = 0; i < itemKeys.keys.length; i++) {
+                if (itemKeys.keys[i] >= low && itemKeys.keys[i] <= high) {
+                    startMap.merge(id, (int) itemKeys.starts[i], Math::min);
+                }
+            }
+        });
+
+        int size = query.length() > KEY_CHARS ? MAX_CANDIDATES : limit;
+        return startMap.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .limit(size)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 从items表重建索引
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (this) {
+            building = true;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            KeyBuffer buffer = new KeyBuffer();
+            int lastId = 0;
+            while (true) {
+                List<Item> items = itemMapper.listAfterId(lastId, LOAD_BATCH_SIZE);
+                for (Item item : items) {
+                    buffer.add(item.getId(), buildKeys(item.getName()));
+                }
+
+                if (items.size() < LOAD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = items.get(items.size() - 1).getId();
+            }
+
+            buffer.sort();
+            synchronized (this) {
+                // 构建期间的变更仍保留在增量表中，覆盖构建时读到的数据
+                snapshot = new Snapshot(buffer.keys(), buffer.ids(), buffer.starts(), snapshot.delta);
+                building = false;
+            }
+            ready = true;
+            log.info("物品拼音索引构建完成，键数量: {}，耗时: {}ms", buffer.size, System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            synchronized (this) {
+                building = false;
+            }
+            log.error("物品拼音索引构建失败", ex);
+        }
+    }
+
+    private synchronized void applyDelta(Map<Integer, ItemKeys> changes) {
+        Map<Integer, ItemKeys> delta = new HashMap<>(snapshot.delta);
+        delta.putAll(changes);
+        if (!building && delta.size() >= MERGE_THRESHOLD) {
+            snapshot = merge(snapshot, delta);
+        } else {
+            snapshot = new Snapshot(snapshot.keys, snapshot.ids, snapshot.starts, delta);
+        }
+    }
+
+    /**
+     * 把增量表合并进有序数组：去掉有序数组中被覆盖的物品，再与排好序的增量键归并
+     */
+    private static Snapshot merge(Snapshot base, Map<Integer, ItemKeys> delta) {
+        KeyBuffer buffer = new KeyBuffer();
+        delta.forEach((id, itemKeys) -> {
+            if (itemKeys != null) {
+                buffer.add(id, itemKeys);
+            }
+        });
+        buffer.sort();
+
+        int baseCount = 0;
+        for (int id : base.ids) {
+            if (!delta.containsKey(id)) {
+                baseCount++;
+            }
+        }
+
+        int total = baseCount + buffer.size;
+        long[] keys = new long[total];
+        int[] ids = new int[total];
+        byte[] starts = new byte[total];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < total; k++) {
+            while (i < base.ids.length && delta.containsKey(base.ids[i])) {
+                i++;
+            }
+
+            if (j >= buffer.size || (i < base.ids.length && base.keys[i] <= buffer.keys[j])) {
+                keys[k] = base.keys[i];
+                ids[k] = base.ids[i];
+                starts[k] = base.starts[i];
+                i++;
+            } else {
+                keys[k] = buffer.keys[j];
+                ids[k] = buffer.ids[j];
+                starts[k] = buffer.starts[j];
+                j++;
+            }
+        }
+        return new Snapshot(keys, ids, starts, Collections.emptyMap());
+    }
+
+    /**
+     * 生成名称的全部键：从每个单元开始的全拼和首字母
+     */
+    private static ItemKeys buildKeys(String name) {
+        List<PinyinUtils.Unit> units = PinyinUtils.toUnits(name);
+        if (units.size() > MAX_UNITS) {
+            units = units.subList(0, MAX_UNITS);
+        }
+
+        Map<Long, Integer> keyMap = new HashMap<>();
+        for (int start = 0; start < units.size(); start++) {
+            Set<String> keys = new LinkedHashSet<>();
+            collect(units, start, new StringBuilder(), new StringBuilder(), keys);
+            for (String key : keys) {
+                keyMap.putIfAbsent(pack(key), start);
+            }
+        }
+
+        ItemKeys itemKeys = new ItemKeys(keyMap.size());
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : keyMap.entrySet()) {
+            itemKeys.keys[i] = entry.getKey();
+            itemKeys.starts[i] = (byte) (int) entry.getValue();
+            i++;
+        }
+        return itemKeys;
+    }
+
+    private static void collect(List<PinyinUtils.Unit> units, int index, StringBuilder full, StringBuilder initials,
+                                Set<String> keys) {
+        if (keys.size() >= MAX_COMBINATIONS * 2) {
+            return;
+        }
+        if (index == units.size() || (full.length() >= KEY_CHARS && initials.length() >= KEY_CHARS)) {
+            keys.add(full.length() > KEY_CHARS ? full.substring(0, KEY_CHARS) : full.toString());
+            keys.add(initials.toString());
+            return;
+        }
+
+        int fullLength = full.length();
+        for (String reading : units.get(index).getReadings()) {
+            if (fullLength < KEY_CHARS) {
+                full.append(reading);
+            }
+            initials.append(reading.charAt(0));
+            collect(units, index + 1, full, initials, keys);
+            full.setLength(fullLength);
+            initials.setLength(initials.length() - 1);
+        }
+    }
+
+    /**
+     * 把前10个字符压缩成long，字符靠高位对齐，不足10个字符时低位补0，压缩后的大小顺序与字符串的字典序一致
+     */
+    static long pack(CharSequence value) {
+        long packed = 0;
+        for (int i = 0; i < KEY_CHARS; i++) {
+            packed <<= BITS_PER_CHAR;
+            if (i < value.length()) {
+                char c = value.charAt(i);
+                packed |= c >= 'a' ? c - 'a' + 1 : c - '0' + 27;
+            }
+        }
+        return packed;
+    }
+
+    private static int lowerBound(long[] keys, long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 有序数组及其增量表，创建后不再修改
+     */
+    private static class Snapshot {
+        private final long[] keys;
+
+        private final int[] ids;
+
+        private final byte[] starts;
+
+        /**
+         * 变更过的物品的键，值为null表示已删除
+         */
+        private final Map<Integer, ItemKeys> delta;
+
+        Snapshot(long[] keys, int[] ids, byte[] starts, Map<Integer, ItemKeys> delta) {
+            this.keys = keys;
+            this.ids = ids;
+            this.starts = starts;
+            this.delta = delta;
+        }
+    }
+
+    /**
+     * 单个物品的键及对应的开始单元
+     */
+    private static class ItemKeys {
+        private final long[] keys;
+
+        private final byte[] starts;
+
+        ItemKeys(int size) {
+            keys = new long[size];
+            starts = new byte[size];
+        }
+    }
+
+    /**
+     * 构建有序数组用的可增长缓冲区
+     */
+    private static class KeyBuffer {
+        private long[] keys = new long[1024];
+
+        private int[] ids = new int[1024];
+
+        private byte[] starts = new byte[1024];
+
+        private int size;
+
+        void add(int id, ItemKeys itemKeys) {
+            int required = size + itemKeys.keys.length;
+            if (required > keys.length) {
+                int capacity = Math.max(required, keys.length * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+            }
+
+            for (int i = 0; i < itemKeys.keys.length; i++) {
+                keys[size] = itemKeys.keys[i];
+                ids[size] = id;
+                starts[size] = itemKeys.starts[i];
+                size++;
+            }
+        }
+
+        /**
+         * 按键排序，三个数组同步交换
+         */
+        void sort() {
+            new IntroSorter() {
+                private long pivot;
+
+                @Override
+                protected void swap(int i, int j) {
+                    long key = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = key;
+                    int id = ids[i];
+                    ids[i] = ids[j];
+                    ids[j] = id;
+                    byte start = starts[i];
+                    starts[i] = starts[j];
+                    starts[j] = start;
+                }
+
+                @Override
+                protected int compare(int i, int j) {
+                    return Long.compare(keys[i], keys[j]);
+                }
+
+                @Override
+                protected void setPivot(int i) {
+                    pivot = keys[i];
+                }
+
+                @Override
+                protected int comparePivot(int j) {
+                    return Long.compare(pivot, keys[j]);
+                }
+            }.sort(0, size);
+        }
+
+        long[] keys() {
+            return Arrays.copyOf(keys, size);
+        }
+
+        int[] ids() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        byte[] starts() {
+            return Arrays.copyOf(starts, size);
+        }
+    }
+}
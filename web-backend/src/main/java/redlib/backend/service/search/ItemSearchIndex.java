@@ -0,0 +1,494 @@
+package redlib.backend.service.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.HtmlUtils;
+import redlib.backend.dao.ItemMapper;
+import redlib.backend.model.Item;
+import redlib.backend.vo.ItemSearchVO;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 物品全文索引
+ * 物品名称和编号按单个字符切分建立Lucene索引，连续字符的短语查询与SQL中的like '%x%'命中结果相同，
+ * 但只需要读取各字符的倒排表，不用全表扫描。
+ * 启动时在后台从items表重建索引，重建完成前isReady()返回false，调用方应回退到数据库查询；
+ * 之后由物品的新增、修改、删除逐条更新索引，更新后立即可查。
+ * 索引默认保存在堆内存中，物品数量很多时可通过warehouse.item-search.path指定磁盘目录，以内存映射方式读取。
+ */
+@Component
+@Slf4j
+public class ItemSearchIndex {
+    private static final String FIELD_KEY = "key";
+
+    private static final String FIELD_ID = "id";
+
+    private static final String FIELD_NAME = "name";
+
+    private static final String FIELD_ITEM_NUMBER = "itemNumber";
+
+    /**
+     * 重建索引时每次从数据库读取的物品数量
+     */
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    /**
+     * 单字符分词，转为小写，与MySQL默认排序规则下like不区分大小写一致
+     */
+    private static final Analyzer ANALYZER = new Analyzer() {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new NGramTokenizer(1, 1);
+            return new TokenStreamComponents(tokenizer, new LowerCaseFilter(tokenizer));
+        }
+    };
+
+    @Value("${warehouse.item-search.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 索引目录，为空时保存在堆内存中
+     */
+    @Value("${warehouse.item-search.path:}")
+    private String path;
+
+    @Autowired
+    private ItemMapper itemMapper;
+
+    /**
+     * 重建期间发生变更的物品，重建完成后从数据库重新读取，避免被重建时读到的旧数据覆盖
+     */
+    private final Set<Integer> dirtyIds = ConcurrentHashMap.newKeySet();
+
+    private Directory directory;
+
+    private IndexWriter writer;
+
+    private SearcherManager searcherManager;
+
+    private volatile boolean rebuilding;
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        directory = StringUtils.hasText(path) ? FSDirectory.open(Paths.get(path)) : new ByteBuffersDirectory();
+        IndexWriterConfig config = new IndexWriterConfig(ANALYZER);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+        config.setRAMBufferSizeMB(64);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+
+        Thread thread = new Thread(this::rebuild, "item-search-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        ready = false;
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * 索引是否可用
+     *
+     * @return true表示已开启且重建完成
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 新增或更新物品的索引
+     *
+     * @param item 物品
+     */
+    public void update(Item item) {
+        if (!enabled) {
+            return;
+        }
+
+        // 先登记再写入，保证重建结束前的变更都会被重新读取
+        if (rebuilding) {
+            dirtyIds.add(item.getId());
+        }
+        try {
+            writer.updateDocument(new Term(FIELD_KEY, item.getId().toString()), toDocument(item));
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException ex) {
+            throw new RuntimeException("更新物品索引失败", ex);
+        }
+    }
+
+    /**
+     * 批量新增或更新物品的索引，全部写入后只刷新一次
+     *
+     * @param items 物品列表
+     */
+    public void updateAll(Collection<Item> items) {
+        if (!enabled || items.isEmpty()) {
+            return;
+        }
+
+        if (rebuilding) {
+            items.forEach(item -> dirtyIds.add(item.getId()));
+        }
+        try {
+            for (Item item : items) {
+                writer.updateDocument(new Term(FIELD_KEY, item.getId().toString()), toDocument(item));
+            }
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException ex) {
+            throw new RuntimeException("更新物品索引失败", ex);
+        }
+    }
+
+    /**
+     * 删除物品的索引
+     *
+     * @param ids 物品ID列表
+     */
+    public void delete(Collection<Integer> ids) {
+        if (!enabled) {
+            return;
+        }
+
+        if (rebuilding) {
+            dirtyIds.addAll(ids);
+        }
+        try {
+            Term[] terms = ids.stream().map(id -> new Term(FIELD_KEY, id.toString())).toArray(Term[]::new);
+            writer.deleteDocuments(terms);
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException ex) {
+            throw new RuntimeException("删除物品索引失败", ex);
+        }
+    }
+
+    /**
+     * 按名称和编号过滤物品，结果与like '%name%' and like '%itemNumber%'相同，按ID升序排列
+     *
+     * @param name       名称关键字，不能为空
+     * @param itemNumber 编号关键字，可以为空
+     * @param offset     开始位置
+     * @param limit      记录数量
+     * @return 命中总数和当前页的物品ID
+     */
+    public Hits filter(String name, String itemNumber, int offset, int limit) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(phraseQuery(FIELD_NAME, name), BooleanClause.Occur.FILTER);
+        if (itemNumber != null) {
+            builder.add(phraseQuery(FIELD_ITEM_NUMBER, itemNumber), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = acquire();
+        try {
+            // 精确统计命中总数，同时按ID取出前offset + limit条
+            TopFieldCollector collector = TopFieldCollector.create(
+                    new Sort(new SortField(FIELD_ID, SortField.Type.LONG)), offset + limit, Integer.MAX_VALUE);
+            searcher.search(builder.build(), collector);
+            TopDocs topDocs = collector.topDocs(offset, limit);
+
+            List<Integer> ids = new ArrayList<>(topDocs.scoreDocs.length);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                ids.add(((Long) ((FieldDoc) scoreDoc).fields[0]).intValue());
+            }
+            return new Hits((int) topDocs.totalHits.value, ids);
+        } catch (IOException ex) {
+            throw new RuntimeException("查询物品索引失败", ex);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    /**
+     * 按关键字搜索物品，名称或编号中连续出现关键字的排在前面，其次是名称中包含关键字全部字符的
+     *
+     * @param keyword 关键字，不能为空
+     * @param limit   最多返回的数量
+     * @return 按相关度排序的命中结果，不包含库存
+     */
+    public List<ItemSearchVO> search(String keyword, int limit) {
+        BooleanQuery.Builder allChars = new BooleanQuery.Builder();
+        keyword.codePoints().distinct().forEach(codePoint -> allChars.add(
+                new TermQuery(new Term(FIELD_NAME, term(codePoint))), BooleanClause.Occur.MUST));
+
+        Query query = new BooleanQuery.Builder()
+                .add(new BoostQuery(phraseQuery(FIELD_NAME, keyword), 4), BooleanClause.Occur.SHOULD)
+                .add(new BoostQuery(phraseQuery(FIELD_ITEM_NUMBER, keyword), 3), BooleanClause.Occur.SHOULD)
+                .add(allChars.build(), BooleanClause.Occur.SHOULD)
+                .build();
+
+        IndexSearcher searcher = acquire();
+        try {
+            TopDocs topDocs = searcher.search(query, limit);
+            List<ItemSearchVO> hits = new ArrayList<>(topDocs.scoreDocs.length);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                Document document = searcher.storedFields().document(scoreDoc.doc);
+                String name = document.get(FIELD_NAME);
+                String itemNumber = document.get(FIELD_ITEM_NUMBER);
+
+                List<String> highlights = new ArrayList<>();
+                String highlightedName = highlight(name, keyword, true);
+                if (highlightedName != null) {
+                    highlights.add(highlightedName);
+                }
+                String highlightedNumber = highlight(itemNumber, keyword, false);
+                if (highlightedNumber != null) {
+                    highlights.add(highlightedNumber);
+                }
+
+                ItemSearchVO vo = new ItemSearchVO();
+                vo.setItemId(document.getField(FIELD_ID).numericValue().intValue());
+                vo.setName(name);
+                vo.setItemNumber(itemNumber);
+                vo.setScore((double) scoreDoc.score);
+                vo.setHighlights(highlights);
+                hits.add(vo);
+            }
+            return hits;
+        } catch (IOException ex) {
+            throw new RuntimeException("查询物品索引失败", ex);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    /**
+     * 从items表重建索引，重建期间isReady()返回false
+     */
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        ready = false;
+        rebuilding = true;
+        long start = System.currentTimeMillis();
+        try {
+            writer.deleteAll();
+            int lastId = 0;
+            int count = 0;
+            while (true) {
+                List<Item> items = itemMapper.listAfterId(lastId, REBUILD_BATCH_SIZE);
+                for (Item item : items) {
+                    writer.updateDocument(new Term(FIELD_KEY, item.getId().toString()), toDocument(item));
+                }
+
+                count += items.size();
+                if (items.size() < REBUILD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = items.get(items.size() - 1).getId();
+            }
+
+            rebuilding = false;
+            reindexDirty();
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            ready = true;
+            log.info("物品索引重建完成，物品数: {}，耗时: {}ms", count, System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            rebuilding = false;
+            log.error("物品索引重建失败，物品查询将使用数据库", ex);
+        }
+    }
+
+    private void reindexDirty() throws IOException {
+        if (dirtyIds.isEmpty()) {
+            return;
+        }
+
+        List<Integer> ids = new ArrayList<>(dirtyIds);
+        dirtyIds.clear();
+        Map<Integer, Item> itemMap = new HashMap<>();
+        for (Item item : itemMapper.listByIds(ids)) {
+            itemMap.put(item.getId(), item);
+        }
+        for (Integer id : ids) {
+            Item item = itemMap.get(id);
+            if (item == null) {
+                writer.deleteDocuments(new Term(FIELD_KEY, id.toString()));
+            } else {
+                writer.updateDocument(new Term(FIELD_KEY, id.toString()), toDocument(item));
+            }
+        }
+    }
+
+    private Document toDocument(Item item) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_KEY, item.getId().toString(), Field.Store.NO));
+        document.add(new NumericDocValuesField(FIELD_ID, item.getId()));
+        document.add(new StoredField(FIELD_ID, item.getId()));
+        document.add(new TextField(FIELD_NAME, item.getName(), Field.Store.YES));
+        document.add(new TextField(FIELD_ITEM_NUMBER, item.getItemNumber(), Field.Store.YES));
+        return document;
+    }
+
+    /**
+     * 关键字的各字符按顺序相邻出现
+     */
+    private Query phraseQuery(String field, String value) {
+        int[] codePoints = value.codePoints().toArray();
+        if (codePoints.length == 1) {
+            return new TermQuery(new Term(field, term(codePoints[0])));
+        }
+
+        PhraseQuery.Builder builder = new PhraseQuery.Builder();
+        for (int i = 0; i < codePoints.length; i++) {
+            builder.add(new Term(field, term(codePoints[i])), i);
+        }
+        return builder.build();
+    }
+
+    private static String term(int codePoint) {
+        return new String(Character.toChars(Character.toLowerCase(codePoint)));
+    }
+
+    /**
+     * 用&lt;em&gt;标出文本中与关键字匹配的部分，连续出现关键字时只标出连续的部分，
+     * 否则在allowScattered为true时逐个标出关键字中的字符
+     *
+     * @return 标记后的文本，没有匹配时返回null
+     */
+    private static String highlight(String text, String keyword, boolean allowScattered) {
+        String lowerText = lowerCase(text);
+        String lowerKeyword = lowerCase(keyword);
+        boolean[] marks = new boolean[text.length()];
+        boolean matched = false;
+        int index = lowerText.indexOf(lowerKeyword);
+        while (index >= 0) {
+            for (int i = index; i < index + lowerKeyword.length(); i++) {
+                marks[i] = true;
+            }
+            matched = true;
+            index = lowerText.indexOf(lowerKeyword, index + lowerKeyword.length());
+        }
+
+        if (!matched && allowScattered) {
+            for (int i = 0; i < lowerText.length(); i++) {
+                if (lowerKeyword.indexOf(lowerText.charAt(i)) >= 0) {
+                    marks[i] = true;
+                    matched = true;
+                }
+            }
+        }
+
+        if (!matched) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int end = i;
+            while (end < text.length() && marks[end] == marks[i]) {
+                end++;
+            }
+
+            String segment = HtmlUtils.htmlEscape(text.substring(i, end));
+            builder.append(marks[i] ? "<em>" + segment + "</em>" : segment);
+            i = end;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 逐字符转小写，保证与原文长度相同
+     */
+    private static String lowerCase(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private IndexSearcher acquire() {
+        try {
+            return searcherManager.acquire();
+        } catch (IOException ex) {
+            throw new RuntimeException("打开物品索引失败", ex);
+        }
+    }
+
+    private void release(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException ex) {
+            log.warn("释放物品索引失败", ex);
+        }
+    }
+
+    /**
+     * 过滤结果
+     */
+    @Data
+    public static class Hits {
+        /**
+         * 命中总数
+         */
+        private final int total;
+
+        /**
+         * 当前页的物品ID
+         */
+        private final List<Integer> ids;
+    }
+}
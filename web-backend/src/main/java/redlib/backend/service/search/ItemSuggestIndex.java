@@ -0,0 +1,344 @@
+package redlib.backend.service.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.util.IntroSorter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redlib.backend.dao.ItemMapper;
+import redlib.backend.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 物品编号和名称的前缀索引，用于输入联想
+ * 每个物品的编号和名称（转小写）各作为一个键，全部键排序后与物品ID存成两个平行数组，
+ * 前缀查询在有序数组上二分查找区间的起点，再顺序读取区间内的键，不访问数据库。
+ * 新增、修改、删除的物品先记在增量表中，查询时增量表覆盖有序数组中同一物品的键，
+ * 增量表达到一定大小后合并进有序数组，因此每次变更只复制增量表，不复制整个有序数组。
+ * 快照创建后不再修改，查询不需要加锁。启动时在后台从items表构建，构建完成前isReady()返回false。
+ */
+@Component
+@Slf4j
+public class ItemSuggestIndex {
+    /**
+     * 一次查询最多读取的键数量
+     */
+    private static final int MAX_SCAN = 200;
+
+    private static final int MERGE_THRESHOLD = 1024;
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    @Value("${warehouse.item-suggest.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private ItemMapper itemMapper;
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new int[0], Collections.emptyMap());
+
+    private volatile boolean ready;
+
+    /**
+     * 是否正在构建，构建期间增量表不合并，以便构建完成后覆盖构建时读到的旧数据
+     */
+    private boolean building;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        building = true;
+        Thread thread = new Thread(this::rebuild, "item-suggest-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 索引是否可用
+     *
+     * @return true表示已开启且构建完成
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 新增或更新物品的索引
+     *
+     * @param item 物品
+     */
+    public void update(Item item) {
+        if (!enabled) {
+            return;
+        }
+
+        applyDelta(Collections.singletonMap(item.getId(), keysOf(item)));
+    }
+
+    /**
+     * 批量新增或更新物品的索引，作为一次增量生成新快照
+     *
+     * @param items 物品列表
+     */
+    public void updateAll(Collection<Item> items) {
+        if (!enabled || items.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, String[]> changes = new HashMap<>();
+        items.forEach(item -> changes.put(item.getId(), keysOf(item)));
+        applyDelta(changes);
+    }
+
+    /**
+     * 删除物品的索引
+     *
+     * @param ids 物品ID列表
+     */
+    public void delete(Collection<Integer> ids) {
+        if (!enabled) {
+            return;
+        }
+
+        Map<Integer, String[]> changes = new HashMap<>();
+        ids.forEach(id -> changes.put(id, null));
+        applyDelta(changes);
+    }
+
+    /**
+     * 查询编号或名称以指定前缀开头的物品，越接近前缀的排在越前面
+     *
+     * @param prefix 前缀，不区分大小写
+     * @param limit  最多返回的数量
+     * @return 物品ID列表
+     */
+    public List<Integer> suggest(String prefix, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        Snapshot current = snapshot;
+        List<Map.Entry<String, Integer>> matched = new ArrayList<>();
+        int begin = lowerBound(current.keys, key);
+        int end = Math.min(begin + MAX_SCAN, current.keys.length);
+        for (int i = begin; i < end && current.keys[i].startsWith(key); i++) {
+            if (!current.delta.containsKey(current.ids[i])) {
+                matched.add(Map.entry(current.keys[i], current.ids[i]));
+            }
+        }
+        current.delta.forEach((id, keys) -> {
+            if (keys == null) {
+                return;
+            }
+            for (String itemKey : keys) {
+                if (itemKey.startsWith(key)) {
+                    matched.add(Map.entry(itemKey, id));
+                }
+            }
+        });
+
+        // 键越短越接近输入的前缀，同长度的按字典序
+        matched.sort((a, b) -> a.getKey().length() != b.getKey().length()
+                ? Integer.compare(a.getKey().length(), b.getKey().length())
+                : a.getKey().compareTo(b.getKey()));
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Map.Entry<String, Integer> entry : matched) {
+            ids.add(entry.getValue());
+            if (ids.size() >= limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * 从items表重建索引
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (this) {
+            building = true;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            List<String> keys = new ArrayList<>();
+            List<Integer> keyIds = new ArrayList<>();
+            int lastId = 0;
+            while (true) {
+                List<Item> items = itemMapper.listAfterId(lastId, LOAD_BATCH_SIZE);
+                for (Item item : items) {
+                    for (String key : keysOf(item)) {
+                        keys.add(key);
+                        keyIds.add(item.getId());
+                    }
+                }
+
+                if (items.size() < LOAD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = items.get(items.size() - 1).getId();
+            }
+
+            String[] keyArray = keys.toArray(new String[0]);
+            int[] idArray = keyIds.stream().mapToInt(Integer::intValue).toArray();
+            sort(keyArray, idArray, keyArray.length);
+            synchronized (this) {
+                // 构建期间的变更仍保留在增量表中，覆盖构建时读到的数据
+                snapshot = new Snapshot(keyArray, idArray, snapshot.delta);
+                building = false;
+            }
+            ready = true;
+            log.info("物品联想索引构建完成，键数量: {}，耗时: {}ms", keyArray.length, System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            synchronized (this) {
+                building = false;
+            }
+            log.error("物品联想索引构建失败", ex);
+        }
+    }
+
+    private synchronized void applyDelta(Map<Integer, String[]> changes) {
+        Map<Integer, String[]> delta = new HashMap<>(snapshot.delta);
+        delta.putAll(changes);
+        if (!building && delta.size() >= MERGE_THRESHOLD) {
+            snapshot = merge(snapshot, delta);
+        } else {
+            snapshot = new Snapshot(snapshot.keys, snapshot.ids, delta);
+        }
+    }
+
+    /**
+     * 把增量表合并进有序数组：去掉有序数组中被覆盖的物品，再与排好序的增量键归并
+     */
+    private static Snapshot merge(Snapshot base, Map<Integer, String[]> delta) {
+        List<String> keyList = new ArrayList<>(delta.size() * 2);
+        List<Integer> keyIdList = new ArrayList<>(delta.size() * 2);
+        delta.forEach((id, keys) -> {
+            if (keys != null) {
+                for (String key : keys) {
+                    keyList.add(key);
+                    keyIdList.add(id);
+                }
+            }
+        });
+        String[] addedKeys = keyList.toArray(new String[0]);
+        int[] addedIds = keyIdList.stream().mapToInt(Integer::intValue).toArray();
+        sort(addedKeys, addedIds, addedKeys.length);
+
+        int baseCount = 0;
+        for (int id : base.ids) {
+            if (!delta.containsKey(id)) {
+                baseCount++;
+            }
+        }
+
+        int total = baseCount + addedKeys.length;
+        String[] keys = new String[total];
+        int[] ids = new int[total];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < total; k++) {
+            while (i < base.ids.length && delta.containsKey(base.ids[i])) {
+                i++;
+            }
+
+            if (j >= addedKeys.length || (i < base.ids.length && base.keys[i].compareTo(addedKeys[j]) <= 0)) {
+                keys[k] = base.keys[i];
+                ids[k] = base.ids[i];
+                i++;
+            } else {
+                keys[k] = addedKeys[j];
+                ids[k] = addedIds[j];
+                j++;
+            }
+        }
+        return new Snapshot(keys, ids, Collections.emptyMap());
+    }
+
+    private static String[] keysOf(Item item) {
+        String number = item.getItemNumber().toLowerCase(Locale.ROOT);
+        String name = item.getName().toLowerCase(Locale.ROOT);
+        return number.equals(name) ? new String[]{number} : new String[]{number, name};
+    }
+
+    /**
+     * 按键排序，两个数组同步交换
+     */
+    private static void sort(String[] keys, int[] ids, int size) {
+        new IntroSorter() {
+            private String pivot;
+
+            @Override
+            protected void swap(int i, int j) {
+                String key = keys[i];
+                keys[i] = keys[j];
+                keys[j] = key;
+                int id = ids[i];
+                ids[i] = ids[j];
+                ids[j] = id;
+            }
+
+            @Override
+            protected int compare(int i, int j) {
+                return keys[i].compareTo(keys[j]);
+            }
+
+            @Override
+            protected void setPivot(int i) {
+                pivot = keys[i];
+            }
+
+            @Override
+            protected int comparePivot(int j) {
+                return pivot.compareTo(keys[j]);
+            }
+        }.sort(0, size);
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 有序数组及其增量表，创建后不再修改
+     */
+    private static class Snapshot {
+        private final String[] keys;
+
+        private final int[] ids;
+
+        /**
+         * 变更过的物品的键，值为null表示已删除
+         */
+        private final Map<Integer, String[]> delta;
+
+        Snapshot(String[] keys, int[] ids, Map<Integer, String[]> delta) {
+            this.keys = keys;
+            this.ids = ids;
+            this.delta = delta;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package redlib.backend.service.stock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import redlib.backend.dao.IdempotencyMapper;
+import redlib.backend.model.IdempotencyRecord;
+import redlib.backend.model.Transaction;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 出入库幂等键登记表
+ * 客户端重试时携带相同的幂等键，有效期内的重复请求直接返回原始操作的记录ID和操作后库存，不再访问数据库；
+ * 同一幂等键的并发请求只有第一个会执行，其余等待它的结果。
+ * 内存中按创建顺序保存，超过有效期或超过容量上限时从最早的开始淘汰。
+ * 配置warehouse.idempotency.persistent=true时同时写入idempotency_keys表，重启或多实例部署时仍能去重。
+ */
+@Component
+@Slf4j
+public class IdempotencyRegistry {
+    /**
+     * 幂等键最大长度
+     */
+    private static final int MAX_KEY_LENGTH = 64;
+
+    /**
+     * 幂等键有效期（秒）
+     */
+    @Value("${warehouse.idempotency.ttl:600}")
+    private long ttl;
+
+    /**
+     * 内存中最多保存的幂等键数量
+     */
+    @Value("${warehouse.idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    /**
+     * 是否同时持久化到数据库
+     */
+    @Value("${warehouse.idempotency.persistent:false}")
+    private boolean persistent;
+
+    /**
+     * 重复请求等待原始请求完成的超时时间（毫秒）
+     */
+    @Value("${warehouse.idempotency.timeout:10000}")
+    private long timeout;
+
+    @Autowired
+    private IdempotencyMapper idempotencyMapper;
+
+    private final Map<String, Entry> entryMap = new ConcurrentHashMap<>();
+
+    /**
+     * 按创建顺序排列的幂等键，有效期相同，所以队首总是最先过期
+     */
+    private final Queue<Entry> expireQueue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong nextCleanup = new AtomicLong();
+
+    /**
+     * 执行一次带幂等键的出入库操作
+     *
+     * @param key     客户端提供的幂等键
+     * @param request 本次请求的出入库记录，用于校验重复请求的内容是否一致
+     * @param action  实际执行出入库的操作
+     * @return 出入库记录，重复请求时返回原始操作的记录
+     */
+    public Transaction execute(String key, Transaction request, Supplier<Transaction> action) {
+        Assert.isTrue(key.length() <= MAX_KEY_LENGTH, "幂等键长度不能超过" + MAX_KEY_LENGTH);
+        String scopedKey = request.getHandlerId() + ":" + key;
+        long now = System.currentTimeMillis();
+        evict(now);
+
+        Entry entry = new Entry(scopedKey, request, now + TimeUnit.SECONDS.toMillis(ttl));
+        while (true) {
+            Entry existing = entryMap.putIfAbsent(scopedKey, entry);
+            if (existing == null) {
+                break;
+            }
+
+            if (existing.expireAt > now) {
+                checkSameRequest(existing.request, request);
+                log.info("幂等键{}重复提交，返回原始操作结果", key);
+                return await(existing);
+            }
+
+            // 已过期但尚未淘汰，替换为新的
+            if (entryMap.replace(scopedKey, existing, entry)) {
+                break;
+            }
+        }
+        expireQueue.add(entry);
+
+        Transaction result;
+        boolean reserved = false;
+        try {
+            if (persistent) {
+                Transaction stored = reserve(scopedKey, request, now);
+                if (stored != null) {
+                    entry.future.complete(stored);
+                    return stored;
+                }
+                reserved = true;
+            }
+
+            result = action.get();
+            if (persistent) {
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setIdemKey(scopedKey);
+                record.setTransactionId(result.getId());
+                record.setPostStock(result.getPostStock());
+                idempotencyMapper.updateResult(record);
+            }
+        } catch (RuntimeException ex) {
+            if (reserved && !TransactionSynchronizationManager.isActualTransactionActive()) {
+                // 合并提交时不在事务中，占用的幂等键不会随失败回滚，需要删除以便客户端重试
+                idempotencyMapper.deleteByKey(scopedKey);
+            }
+            entryMap.remove(scopedKey, entry);
+            entry.future.completeExceptionally(ex);
+            throw ex;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务提交后才公布结果，回滚时删除幂等键以便客户端重试
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        entry.future.complete(result);
+                    } else {
+                        entryMap.remove(scopedKey, entry);
+                        entry.future.completeExceptionally(new RuntimeException("原始出入库操作已回滚"));
+                    }
+                }
+            });
+        } else {
+            entry.future.complete(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * 在数据库中占用幂等键，幂等键已存在时返回其中保存的原始操作结果
+     * 已存在但还没有结果（postStock为空）的幂等键可能正由其他实例处理，也可能因进程崩溃遗留，
+     * 都按处理中拒绝；超过有效期的幂等键删除后重新占用。
+     */
+    private Transaction reserve(String scopedKey, Transaction request, long now) {
+        IdempotencyRecord stored = idempotencyMapper.selectByKey(scopedKey);
+        if (stored != null && stored.getCreatedAt().getTime() <= now - TimeUnit.SECONDS.toMillis(ttl)) {
+            idempotencyMapper.deleteByKey(scopedKey);
+            stored = null;
+        }
+
+        if (stored == null) {
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setIdemKey(scopedKey);
+            record.setItemId(request.getItemId());
+            record.setOperationType(request.getOperationType());
+            record.setQuantity(request.getQuantity());
+            record.setCreatedAt(new Date(now));
+            try {
+                idempotencyMapper.insert(record);
+                return null;
+            } catch (DuplicateKeyException ex) {
+                throw new IllegalArgumentException("相同幂等键的操作正在处理中，请稍后重试");
+            }
+        }
+
+        Transaction transaction = new Transaction();
+        transaction.setId(stored.getTransactionId());
+        transaction.setItemId(stored.getItemId());
+        transaction.setOperationType(stored.getOperationType());
+        transaction.setQuantity(stored.getQuantity());
+        transaction.setPostStock(stored.getPostStock());
+        checkSameRequest(transaction, request);
+        // 账本模式下记录ID在写回前为空，以操作后库存判断是否已有结果
+        Assert.isTrue(stored.getPostStock() != null, "相同幂等键的操作正在处理中，请稍后重试");
+        return transaction;
+    }
+
+    private void checkSameRequest(Transaction original, Transaction request) {
+        Assert.isTrue(Objects.equals(original.getItemId(), request.getItemId())
+                        && Objects.equals(original.getOperationType(), request.getOperationType())
+                        && Objects.equals(original.getQuantity(), request.getQuantity()),
+                "幂等键已用于其他出入库操作");
+    }
+
+    private Transaction await(Entry entry) {
+        try {
+            return entry.future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待原始出入库操作完成被中断", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) ex.getCause();
+            }
+            throw new RuntimeException("原始出入库操作失败", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new RuntimeException("等待原始出入库操作完成超时", ex);
+        }
+    }
+
+    /**
+     * 从队首开始淘汰过期或超出容量的幂等键
+     */
+    private void evict(long now) {
+        Entry head;
+        while ((head = expireQueue.peek()) != null
+                && (head.expireAt <= now || entryMap.size() > maxEntries)) {
+            if (expireQueue.remove(head)) {
+                entryMap.remove(head.key, head);
+            }
+        }
+
+        long cleanupAt = nextCleanup.get();
+        if (persistent && now >= cleanupAt && nextCleanup.compareAndSet(cleanupAt, now + TimeUnit.SECONDS.toMillis(ttl))) {
+            int count = idempotencyMapper.deleteBefore(new Date(now - TimeUnit.SECONDS.toMillis(ttl)));
+            log.debug("清理过期幂等键{}条", count);
+        }
+    }
+
+    /**
+     * 幂等键登记项
+     */
+    private static class Entry {
+        private final String key;
+
+        private final Transaction request;
+
+        private final long expireAt;
+
+        private final CompletableFuture<Transaction> future = new CompletableFuture<>();
+
+        Entry(String key, Transaction request, long expireAt) {
+            this.key = key;
+            this.request = request;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package redlib.backend.service.stock;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import redlib.backend.cache.ItemCache;
+import redlib.backend.model.Item;
+import redlib.backend.model.Reservation;
+import redlib.backend.utils.TimingWheel;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 库存预留登记表
+ * 在内存中按物品累计已预留数量，可用库存 = 当前库存 - 已预留数量。
+ * 预留到期后由时间轮自动释放，不需要定期扫描全部预留。
+ * 预留是软预留：同一物品的预留之间互斥，普通出库通过带下限的库存更新不会占用已预留的库存，
+ * 但预留与并发出库之间不加锁，极端情况下可能短暂超额预留。
+ */
+@Component
+@Slf4j
+public class ReservationRegistry {
+    /**
+     * 锁分段数量，必须是2的幂
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * 默认有效期（秒）
+     */
+    @Value("${warehouse.reservation.ttl:900}")
+    private int defaultTtl;
+
+    /**
+     * 最长有效期（秒）
+     */
+    @Value("${warehouse.reservation.max-ttl:86400}")
+    private int maxTtl;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    private final Map<Long, Holder> reservationMap = new ConcurrentHashMap<>();
+
+    private final Map<Integer, AtomicInteger> reservedMap = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    private final AtomicLong idGenerator = new AtomicLong();
+
+    private TimingWheel timingWheel;
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        // 刻度1秒，512个槽位转一圈约8.5分钟，更长的有效期通过圈数计算
+        timingWheel = new TimingWheel("reservation-expiry", 1000, 512);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timingWheel.stop();
+    }
+
+    /**
+     * 预留库存
+     *
+     * @param itemId   物品ID
+     * @param quantity 预留数量
+     * @param ttl      有效期（秒），为null时使用默认有效期
+     * @param userId   预留人ID
+     * @param remark   备注
+     * @return 预留信息
+     */
+    public Reservation reserve(Integer itemId, int quantity, Integer ttl, Integer userId, String remark) {
+        int seconds = ttl == null ? defaultTtl : ttl;
+        Assert.isTrue(seconds > 0 && seconds <= maxTtl, "预留有效期必须在1到" + maxTtl + "秒之间");
+
+        ReentrantLock lock = lockOf(itemId);
+        lock.lock();
+        try {
+            Integer stock = getStock(itemId);
+            Assert.notNull(stock, "物品不存在，ID为: " + itemId);
+            int reserved = getReserved(itemId);
+            Assert.isTrue(stock - reserved >= quantity, "可用库存不足，当前库存: " + stock + "，已预留: " + reserved);
+
+            Reservation reservation = new Reservation();
+            reservation.setId(idGenerator.incrementAndGet());
+            reservation.setItemId(itemId);
+            reservation.setQuantity(quantity);
+            reservation.setUserId(userId);
+            reservation.setRemark(remark);
+            reservation.setCreatedAt(new Date());
+            reservation.setExpireAt(new Date(reservation.getCreatedAt().getTime() + seconds * 1000L));
+            add(reservation);
+            return reservation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除预留并释放已预留数量
+     *
+     * @param id 预留ID
+     * @return 被移除的预留，不存在或已过期时返回null
+     */
+    public Reservation remove(Long id) {
+        Holder holder = reservationMap.remove(id);
+        if (holder == null) {
+            return null;
+        }
+
+        // 定时任务在登记之后才添加，并发移除时可能还没有
+        if (holder.timeout != null) {
+            holder.timeout.cancel();
+        }
+        reservedMap.get(holder.reservation.getItemId()).addAndGet(-holder.reservation.getQuantity());
+        return holder.reservation;
+    }
+
+    /**
+     * 恢复被移除的预留，用于确认失败后回退，已过期的预留会在下一个刻度释放
+     *
+     * @param reservation 预留信息
+     */
+    public void restore(Reservation reservation) {
+        add(reservation);
+    }
+
+    /**
+     * 获取预留信息
+     *
+     * @param id 预留ID
+     * @return 预留信息，不存在或已过期时返回null
+     */
+    public Reservation get(Long id) {
+        Holder holder = reservationMap.get(id);
+        return holder == null ? null : holder.reservation;
+    }
+
+    /**
+     * 获取物品的已预留数量，O(1)
+     *
+     * @param itemId 物品ID
+     * @return 已预留数量
+     */
+    public int getReserved(Integer itemId) {
+        AtomicInteger reserved = reservedMap.get(itemId);
+        return reserved == null ? 0 : reserved.get();
+    }
+
+    /**
+     * 读取物品当前库存，账本模式下直接读内存，否则读物品缓存
+     *
+     * @param itemId 物品ID
+     * @return 当前库存，物品不存在时返回null
+     */
+    public Integer getStock(Integer itemId) {
+        if (stockLedger.isEnabled()) {
+            return stockLedger.getStock(itemId);
+        }
+
+        Item item = itemCache.getById(itemId);
+        return item == null ? null : item.getStockQuantity();
+    }
+
+    private void add(Reservation reservation) {
+        Holder holder = new Holder(reservation);
+        reservedMap.computeIfAbsent(reservation.getItemId(), key -> new AtomicInteger())
+                .addAndGet(reservation.getQuantity());
+        reservationMap.put(reservation.getId(), holder);
+        long delay = reservation.getExpireAt().getTime() - System.currentTimeMillis();
+        holder.timeout = timingWheel.schedule(() -> expire(reservation.getId(), holder), delay);
+    }
+
+    private void expire(Long id, Holder holder) {
+        if (reservationMap.remove(id, holder)) {
+            reservedMap.get(holder.reservation.getItemId()).addAndGet(-holder.reservation.getQuantity());
+            log.info("库存预留{}已过期，释放物品{}的预留数量{}", id, holder.reservation.getItemId(), holder.reservation.getQuantity());
+        }
+    }
+
+    private ReentrantLock lockOf(Integer itemId) {
+        return locks[itemId.hashCode() & (STRIPES - 1)];
+    }
+
+    /**
+     * 预留及其到期定时任务
+     */
+    private static class Holder {
+        private final Reservation reservation;
+
+        private volatile TimingWheel.Timeout timeout;
+
+        Holder(Reservation reservation) {
+            this.reservation = reservation;
+        }
+    }
+}
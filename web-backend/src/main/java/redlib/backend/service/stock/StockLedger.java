@@ -0,0 +1,393 @@
+package redlib.backend.service.stock;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import redlib.backend.cache.ItemCache;
+import redlib.backend.cache.PageCountCache;
+import redlib.backend.dao.ItemMapper;
+import redlib.backend.dao.TransactionMapper;
+import redlib.backend.model.Item;
+import redlib.backend.model.StockChange;
+import redlib.backend.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 内存库存账本（账本模式）
+ * 启动时从items表加载库存，之后由内存账本负责出入库的库存校验和变更，
+ * 库存和出入库记录通过有界队列异步批量写回数据库，关闭时会把队列中的记录全部写完。
+ * 一批记录重试多次仍然失败时改为逐条写回，逐条写回仍失败的记录输出到死信日志，需要人工补录。
+ * 通过配置warehouse.ledger.enabled=true开启，默认关闭。
+ */
+@Component
+@Slf4j
+public class StockLedger {
+    /**
+     * 锁分段数量，必须是2的幂
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * 死信日志，记录无法写回数据库的出入库记录
+     */
+    private static final Logger deadLetterLog = LoggerFactory.getLogger("redlib.backend.ledger.dead-letter");
+
+    @Value("${warehouse.ledger.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 写回队列容量，队列满时出入库操作会等待，以此限制内存与数据库之间的最大差距
+     */
+    @Value("${warehouse.ledger.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * 每次写回的最大记录数
+     */
+    @Value("${warehouse.ledger.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 写回间隔（毫秒），队列中的记录最多等待这么长时间就会被写回
+     */
+    @Value("${warehouse.ledger.flush-interval:200}")
+    private long flushInterval;
+
+    /**
+     * 一批记录写回失败后的最大尝试次数，超过后改为逐条写回
+     */
+    @Value("${warehouse.ledger.max-retries:3}")
+    private int maxRetries;
+
+    @Autowired
+    private ItemMapper itemMapper;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PageCountCache pageCountCache;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    private final Map<Integer, AtomicInteger> stockMap = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    private BlockingQueue<Transaction> writeQueue;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Thread writer;
+
+    /**
+     * 写回线程正在写的一批记录，写回线程结束后由shutdown接着写完
+     */
+    private final List<Transaction> inflight = new ArrayList<>();
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        for (Item item : itemMapper.listStock()) {
+            stockMap.put(item.getId(), new AtomicInteger(item.getStockQuantity()));
+        }
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "stock-ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("库存账本模式已开启，加载物品数量: {}", stockMap.size());
+    }
+
+    /**
+     * 是否开启了账本模式
+     *
+     * @return true表示开启
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 读取物品当前库存
+     *
+     * @param itemId 物品ID
+     * @return 当前库存，物品不存在时返回null
+     */
+    public Integer getStock(Integer itemId) {
+        AtomicInteger stock = stockMap.get(itemId);
+        return stock == null ? null : stock.get();
+    }
+
+    /**
+     * 在账本中执行一次出入库，并把出入库记录放入写回队列
+     *
+     * @param record   出入库记录，执行成功后回填postStock
+     * @param quantity 变动数量（正数为增加，负数为减少）
+     * @param floor    变动后库存的下限，出库时为物品的已预留数量
+     */
+    public void apply(Transaction record, int quantity, int floor) {
+        ReentrantLock lock = lockOf(record.getItemId());
+        lock.lock();
+        try {
+            AtomicInteger stock = stockMap.get(record.getItemId());
+            Assert.notNull(stock, "物品不存在，ID为: " + record.getItemId());
+            int postStock = stock.get() + quantity;
+            Assert.isTrue(postStock >= 0, "库存不足，当前库存: " + stock.get());
+            Assert.isTrue(postStock >= floor, "可用库存不足，当前库存: " + stock.get() + "，已预留: " + floor);
+            stock.set(postStock);
+            record.setPostStock(postStock);
+        } finally {
+            lock.unlock();
+        }
+
+        enqueue(record);
+    }
+
+    /**
+     * 在账本中原子地执行一批出入库，任一明细库存不足则全部不生效
+     *
+     * @param records    出入库记录列表，执行成功后回填postStock
+     * @param quantities 与records一一对应的变动数量
+     * @param floors     与records一一对应的变动后库存下限
+     */
+    public void applyAll(List<Transaction> records, int[] quantities, int[] floors) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Transaction record : records) {
+            stripes.add(stripeOf(record.getItemId()));
+        }
+
+        // 按分段顺序加锁，避免死锁
+        for (Integer stripe : stripes) {
+            locks[stripe].lock();
+        }
+        try {
+            Map<Integer, Integer> balanceMap = new LinkedHashMap<>();
+            for (int i = 0; i < records.size(); i++) {
+                Transaction record = records.get(i);
+                Integer stock = balanceMap.get(record.getItemId());
+                if (stock == null) {
+                    stock = getStock(record.getItemId());
+                    Assert.notNull(stock, "第" + (i + 1) + "行: 物品不存在，ID为: " + record.getItemId());
+                }
+
+                int postStock = stock + quantities[i];
+                Assert.isTrue(postStock >= 0, "第" + (i + 1) + "行: 库存不足，当前库存: " + stock);
+                Assert.isTrue(postStock >= floors[i], "第" + (i + 1) + "行: 可用库存不足，当前库存: " + stock + "，已预留: " + floors[i]);
+                balanceMap.put(record.getItemId(), postStock);
+                record.setPostStock(postStock);
+            }
+
+            balanceMap.forEach((itemId, stock) -> stockMap.get(itemId).set(stock));
+        } finally {
+            for (Integer stripe : stripes.descendingSet()) {
+                locks[stripe].unlock();
+            }
+        }
+
+        for (Transaction record : records) {
+            enqueue(record);
+        }
+    }
+
+    /**
+     * 新增物品后登记到账本
+     *
+     * @param itemId 物品ID
+     * @param stock  初始库存
+     */
+    public void register(Integer itemId, int stock) {
+        if (enabled) {
+            stockMap.put(itemId, new AtomicInteger(stock));
+        }
+    }
+
+    /**
+     * 删除物品后从账本移除
+     *
+     * @param itemIds 物品ID列表
+     */
+    public void remove(List<Integer> itemIds) {
+        if (enabled) {
+            itemIds.forEach(stockMap::remove);
+        }
+    }
+
+    /**
+     * 获取尚未写回数据库的记录数
+     *
+     * @return 写回队列中的记录数
+     */
+    public int getPendingCount() {
+        return writeQueue == null ? 0 : writeQueue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (writer.isAlive()) {
+            // 写回线程还在写，这里再写会和它并发写同一批记录
+            log.error("库存账本写回线程未能按时结束，剩余{}条记录未写回", writeQueue.size());
+            return;
+        }
+
+        // 写回线程已结束，把它没写完的一批和剩余的记录全部写回
+        if (!inflight.isEmpty()) {
+            write(inflight);
+            inflight.clear();
+        }
+        List<Transaction> batch = new ArrayList<>();
+        while (writeQueue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        log.info("库存账本已关闭，写回队列已清空");
+    }
+
+    private void enqueue(Transaction record) {
+        try {
+            writeQueue.put(record);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("出入库记录写入队列被中断", ex);
+        }
+    }
+
+    private void writeLoop() {
+        while (running || !writeQueue.isEmpty() || !inflight.isEmpty()) {
+            try {
+                if (inflight.isEmpty()) {
+                    Transaction first = writeQueue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+
+                    inflight.add(first);
+                    writeQueue.drainTo(inflight, batchSize - 1);
+                }
+
+                write(inflight);
+                inflight.clear();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 写回一批记录，失败时重试，超过最大尝试次数后改为逐条写回
+     *
+     * @param batch 出入库记录列表
+     */
+    private void write(List<Transaction> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flush(batch);
+                return;
+            } catch (Exception ex) {
+                if (attempt >= maxRetries) {
+                    log.error("库存账本写回失败{}次，{}条记录改为逐条写回", attempt, batch.size(), ex);
+                    writeEach(batch);
+                    return;
+                }
+
+                log.error("库存账本写回失败，{}条记录稍后重试", batch.size(), ex);
+                Thread.sleep(flushInterval);
+            }
+        }
+    }
+
+    /**
+     * 逐条写回，一条记录失败不影响其他记录，失败的记录输出到死信日志
+     *
+     * @param batch 出入库记录列表
+     */
+    private void writeEach(List<Transaction> batch) {
+        for (Transaction record : batch) {
+            try {
+                flush(List.of(record));
+            } catch (Exception ex) {
+                log.error("出入库记录写回失败，已转入死信日志，物品ID: {}", record.getItemId(), ex);
+                deadLetterLog.error("{}", record);
+            }
+        }
+    }
+
+    private void flush(List<Transaction> batch) {
+        // 写回前物品已被删除的记录直接丢弃
+        List<Transaction> records = batch.stream()
+                .filter(record -> stockMap.containsKey(record.getItemId()))
+                .collect(Collectors.toList());
+        if (records.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Integer> netMap = new LinkedHashMap<>();
+        for (Transaction record : records) {
+            int quantity = "0".equals(record.getOperationType()) ? -record.getQuantity() : record.getQuantity();
+            netMap.merge(record.getItemId(), quantity, Integer::sum);
+        }
+
+        List<StockChange> changeList = netMap.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> new StockChange(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!changeList.isEmpty()) {
+                itemMapper.batchUpdateStock(changeList);
+            }
+            transactionMapper.insertBatch(records);
+        });
+        pageCountCache.invalidate(PageCountCache.TRANSACTION);
+        itemCache.invalidateAll(netMap.keySet());
+    }
+
+    private int stripeOf(Integer itemId) {
+        return itemId.hashCode() & (STRIPES - 1);
+    }
+
+    private ReentrantLock lockOf(Integer itemId) {
+        return locks[stripeOf(itemId)];
+    }
+}
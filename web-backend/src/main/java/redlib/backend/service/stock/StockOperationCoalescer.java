@@ -0,0 +1,242 @@
+package redlib.backend.service.stock;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import redlib.backend.cache.ItemCache;
+import redlib.backend.cache.PageCountCache;
+import redlib.backend.dao.ItemMapper;
+import redlib.backend.dao.TransactionMapper;
+import redlib.backend.model.Item;
+import redlib.backend.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 热点物品出入库合并
+ * 同一物品在很短的时间窗口内并发到达的出入库操作，由最先到达的请求线程作为执行者，
+ * 在一个事务中锁定物品一次，按到达顺序逐条校验并计算操作后库存，
+ * 再用一条语句写入净库存变动，并多行插入各条出入库记录。
+ * 单条操作库存不足只会使该条失败，不影响同一批的其他操作。
+ * 调用方不能处于事务中：执行者和等待者若各自占着外层事务的连接，执行者再开新事务时会耗尽连接池。
+ * 执行者提交后、通知各等待者之前使物品缓存和出入库记录数缓存失效，提交前被读入缓存的旧数据不会留下。
+ * 物品的队列空闲后即从表中移除，表的大小只与正在操作的物品数量有关。
+ * 通过配置warehouse.coalesce.enabled=true开启，默认关闭。
+ */
+@Component
+@Slf4j
+public class StockOperationCoalescer {
+    @Value("${warehouse.coalesce.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 合并窗口（微秒），执行者在开始处理前等待这么长时间以收集同一物品的并发操作
+     */
+    @Value("${warehouse.coalesce.window-micros:500}")
+    private long windowMicros;
+
+    /**
+     * 请求等待处理结果的超时时间（毫秒）
+     */
+    @Value("${warehouse.coalesce.timeout:10000}")
+    private long timeout;
+
+    @Autowired
+    private ItemMapper itemMapper;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private PageCountCache pageCountCache;
+
+    private final Map<Integer, Lane> laneMap = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 是否开启了热点合并
+     *
+     * @return true表示开启
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交一次出入库操作，与同一物品的并发操作合并执行，执行完成后返回
+     *
+     * @param record   出入库记录，返回时已回填id和postStock
+     * @param quantity 变动数量（正数为增加，负数为减少）
+     * @param floor    变动后库存的下限，出库时为物品的已预留数量
+     * @return 记录ID
+     */
+    public Integer submit(Transaction record, int quantity, int floor) {
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(), "热点合并不能在事务中调用");
+        Lane lane = laneMap.computeIfAbsent(record.getItemId(), key -> new Lane());
+        PendingOperation operation = new PendingOperation(record, quantity, floor);
+        lane.queue.add(operation);
+
+        // 没有执行者时由当前线程担任执行者；执行者释放后若队列中还有操作，需再次尝试担任执行者，
+        // 因为执行期间到达的操作其线程抢不到执行者，只会等待
+        while (lane.running.compareAndSet(false, true)) {
+            try {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(windowMicros));
+                drain(record.getItemId(), lane);
+            } finally {
+                lane.running.set(false);
+            }
+
+            if (lane.queue.isEmpty()) {
+                break;
+            }
+        }
+
+        if (lane.queue.isEmpty() && !lane.running.get()) {
+            // 移除后仍持有该队列的线程会自己担任执行者处理其中的操作，
+            // 同一物品短时间内可能有两个执行者，加锁查询保证它们依次执行
+            laneMap.remove(record.getItemId(), lane);
+        }
+
+        try {
+            return operation.future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待出入库操作完成被中断", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) ex.getCause();
+            }
+            throw new RuntimeException("出入库操作失败", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new RuntimeException("出入库操作超时", ex);
+        }
+    }
+
+    private void drain(Integer itemId, Lane lane) {
+        List<PendingOperation> batch = new ArrayList<>();
+        PendingOperation operation;
+        while ((operation = lane.queue.poll()) != null) {
+            batch.add(operation);
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<PendingOperation> accepted = new ArrayList<>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Item> items = itemMapper.listByIdsForUpdate(Collections.singletonList(itemId));
+                if (items.isEmpty()) {
+                    batch.forEach(pending -> pending.future.completeExceptionally(
+                            new IllegalArgumentException("物品不存在，ID为: " + itemId)));
+                    return;
+                }
+
+                // 按到达顺序逐条校验，计算操作后库存
+                int stock = items.get(0).getStockQuantity();
+                int net = 0;
+                for (PendingOperation pending : batch) {
+                    if (stock + pending.quantity < 0) {
+                        pending.future.completeExceptionally(
+                                new IllegalArgumentException("库存不足，当前库存: " + stock));
+                        continue;
+                    }
+                    if (stock + pending.quantity < pending.floor) {
+                        pending.future.completeExceptionally(new IllegalArgumentException(
+                                "可用库存不足，当前库存: " + stock + "，已预留: " + pending.floor));
+                        continue;
+                    }
+
+                    stock += pending.quantity;
+                    net += pending.quantity;
+                    pending.record.setPostStock(stock);
+                    accepted.add(pending);
+                }
+
+                if (accepted.isEmpty()) {
+                    return;
+                }
+
+                if (net != 0) {
+                    itemMapper.updateStock(itemId, net);
+                }
+                List<Transaction> records = new ArrayList<>(accepted.size());
+                accepted.forEach(pending -> records.add(pending.record));
+                transactionMapper.insertBatch(records);
+            });
+        } catch (Exception ex) {
+            log.error("物品{}的出入库合并执行失败，操作数: {}", itemId, batch.size(), ex);
+            batch.forEach(pending -> pending.future.completeExceptionally(ex));
+            return;
+        }
+
+        if (batch.size() > 1) {
+            log.debug("物品{}合并执行{}个出入库操作", itemId, batch.size());
+        }
+        if (!accepted.isEmpty()) {
+            // 执行者的事务不是调用方的事务，没有事务同步，提交后在这里失效缓存
+            pageCountCache.invalidate(PageCountCache.TRANSACTION);
+            itemCache.invalidate(itemId);
+        }
+        accepted.forEach(pending -> pending.future.complete(pending.record.getId()));
+    }
+
+    /**
+     * 单个物品的待处理队列
+     */
+    private static class Lane {
+        private final Queue<PendingOperation> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean running = new AtomicBoolean(false);
+    }
+
+    /**
+     * 等待执行的出入库操作
+     */
+    private static class PendingOperation {
+        private final Transaction record;
+
+        private final int quantity;
+
+        private final int floor;
+
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        PendingOperation(Transaction record, int quantity, int floor) {
+            this.record = record;
+            this.quantity = quantity;
+            this.floor = floor;
+        }
+    }
+}
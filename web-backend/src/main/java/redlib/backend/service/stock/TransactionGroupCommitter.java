@@ -0,0 +1,300 @@
+package redlib.backend.service.stock;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import redlib.backend.cache.ItemCache;
+import redlib.backend.cache.PageCountCache;
+import redlib.backend.dao.ItemMapper;
+import redlib.backend.dao.TransactionMapper;
+import redlib.backend.model.Item;
+import redlib.backend.model.StockChange;
+import redlib.backend.model.Transaction;
+import redlib.backend.utils.Histogram;
+import redlib.backend.vo.GroupCommitStatsVO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 出入库操作合并提交
+ * 各请求把出入库记录放入有界环形队列，由单个写线程每凑满batch-size条或等待max-delay毫秒后，
+ * 在一个事务中依次执行各条记录的带条件库存更新，再用一条多行插入语句写入出入库记录，
+ * 提交成功后才把生成的记录ID返回给各请求，从而把每次操作一次的日志刷盘合并为每批一次。
+ * 库存更新也放在写线程中执行，是因为插入出入库记录时的外键检查需要物品行上的共享锁，
+ * 如果请求线程持有物品行锁等待写线程，写线程又等待该行锁，就会互相等待。
+ * 一批记录按物品ID顺序执行库存更新（同一物品保持到达顺序），与批量出入库按ID顺序加锁一致，避免互相死锁。
+ * 单条记录库存不足只会使该条失败，不影响同一批的其他记录。
+ * 调用方不能处于事务中：等待期间占着的连接会与写线程争用连接池，而且合并提交不随调用方的事务回滚。
+ * 提交后、通知各请求之前使物品缓存和出入库记录数缓存失效，提交前被读入缓存的旧数据不会留下。
+ * 通过配置warehouse.group-commit.enabled=true开启，默认关闭。
+ */
+@Component
+@Slf4j
+public class TransactionGroupCommitter {
+    @Value("${warehouse.group-commit.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 队列容量
+     */
+    @Value("${warehouse.group-commit.queue-capacity:4096}")
+    private int queueCapacity;
+
+    /**
+     * 每批最多提交的记录数
+     */
+    @Value("${warehouse.group-commit.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * 一批中第一条记录最多等待的时间（毫秒）
+     */
+    @Value("${warehouse.group-commit.max-delay:5}")
+    private long maxDelay;
+
+    /**
+     * 请求等待提交结果的超时时间（毫秒）
+     */
+    @Value("${warehouse.group-commit.timeout:10000}")
+    private long timeout;
+
+    @Autowired
+    private ItemMapper itemMapper;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private PageCountCache pageCountCache;
+
+    private final Histogram batchSizeHistogram = new Histogram();
+
+    private final Histogram commitLatencyHistogram = new Histogram();
+
+    private BlockingQueue<PendingRecord> queue;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        // 合并提交使用独立事务，不加入调用方的事务
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "transaction-group-committer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("出入库记录合并提交已开启，batchSize: {}, maxDelay: {}ms", batchSize, maxDelay);
+    }
+
+    /**
+     * 是否开启了合并提交
+     *
+     * @return true表示开启
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交一次出入库操作，等待所在批次提交成功后返回
+     *
+     * @param record   出入库记录，返回时已回填id和postStock
+     * @param quantity 变动数量（正数为增加，负数为减少）
+     * @param floor    变动后库存的下限，出库时为物品的已预留数量
+     * @return 记录ID
+     */
+    public Integer submit(Transaction record, int quantity, int floor) {
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(), "合并提交不能在事务中调用");
+        PendingRecord pending = new PendingRecord(record, quantity, floor);
+        try {
+            queue.put(pending);
+            return pending.future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待出入库记录提交被中断", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IllegalArgumentException) {
+                // 物品不存在、库存不足等校验错误原样抛出
+                throw (IllegalArgumentException) ex.getCause();
+            }
+            throw new RuntimeException("出入库记录提交失败", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new RuntimeException("出入库记录提交超时", ex);
+        }
+    }
+
+    /**
+     * 获取合并提交统计信息
+     *
+     * @return 统计信息
+     */
+    public GroupCommitStatsVO getStats() {
+        GroupCommitStatsVO vo = new GroupCommitStatsVO();
+        vo.setEnabled(enabled);
+        vo.setBatchCount(batchSizeHistogram.getTotal());
+        vo.setRecordCount(batchSizeHistogram.getSum());
+        vo.setMeanBatchSize(batchSizeHistogram.getMean());
+        vo.setBatchSizeHistogram(batchSizeHistogram.snapshot());
+        vo.setMeanCommitMillis(commitLatencyHistogram.getMean());
+        vo.setMaxCommitMillis(commitLatencyHistogram.getMax());
+        vo.setCommitLatencyHistogram(commitLatencyHistogram.snapshot());
+        vo.setPendingCount(queue == null ? 0 : queue.size());
+        return vo;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // 凑够一批或等到最长等待时间
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelay);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+
+                    PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                commit(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.future.completeExceptionally(ex));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingRecord> batch) {
+        // 按物品ID加锁，排序是稳定的，同一物品的记录仍按到达顺序执行
+        List<PendingRecord> ordered = new ArrayList<>(batch);
+        ordered.sort(Comparator.comparing(pending -> pending.record.getItemId()));
+        List<PendingRecord> accepted = new ArrayList<>(batch.size());
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingRecord pending : ordered) {
+                    StockChange stockChange = new StockChange(pending.record.getItemId(), pending.quantity, pending.floor);
+                    if (itemMapper.updateStockGuarded(stockChange) == 0) {
+                        pending.future.completeExceptionally(rejection(pending));
+                        continue;
+                    }
+
+                    pending.record.setPostStock(stockChange.getPostStock());
+                    accepted.add(pending);
+                }
+
+                if (!accepted.isEmpty()) {
+                    List<Transaction> records = new ArrayList<>(accepted.size());
+                    accepted.forEach(pending -> records.add(pending.record));
+                    transactionMapper.insertBatch(records);
+                }
+            });
+        } catch (Exception ex) {
+            log.error("出入库记录合并提交失败，记录数: {}", batch.size(), ex);
+            batch.forEach(pending -> pending.future.completeExceptionally(ex));
+            return;
+        }
+
+        commitLatencyHistogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        batchSizeHistogram.record(batch.size());
+        if (!accepted.isEmpty()) {
+            // 写线程没有调用方的事务同步，提交后在这里失效缓存
+            Set<Integer> itemIds = new HashSet<>();
+            accepted.forEach(pending -> itemIds.add(pending.record.getItemId()));
+            pageCountCache.invalidate(PageCountCache.TRANSACTION);
+            itemCache.invalidateAll(itemIds);
+        }
+        accepted.forEach(pending -> pending.future.complete(pending.record.getId()));
+    }
+
+    private IllegalArgumentException rejection(PendingRecord pending) {
+        Item item = itemMapper.selectByPrimaryKey(pending.record.getItemId());
+        if (item == null) {
+            return new IllegalArgumentException("物品不存在，ID为: " + pending.record.getItemId());
+        }
+
+        if (item.getStockQuantity() + pending.quantity < 0) {
+            return new IllegalArgumentException("库存不足，当前库存: " + item.getStockQuantity());
+        }
+
+        return new IllegalArgumentException("可用库存不足，当前库存: " + item.getStockQuantity() + "，已预留: " + pending.floor);
+    }
+
+    /**
+     * 等待提交的记录
+     */
+    private static class PendingRecord {
+        private final Transaction record;
+
+        private final int quantity;
+
+        private final int floor;
+
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        PendingRecord(Transaction record, int quantity, int floor) {
+            this.record = record;
+            this.quantity = quantity;
+            this.floor = floor;
+        }
+    }
+}
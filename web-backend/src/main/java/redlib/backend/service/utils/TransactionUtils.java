@@ -6,6 +6,7 @@ import org.springframework.util.StringUtils;
 import redlib.backend.dto.TransactionDTO;
 import redlib.backend.model.Item;
 import redlib.backend.model.Transaction;
+import redlib.backend.vo.TransactionResultVO;
 import redlib.backend.vo.TransactionVO;
 
 import java.util.Map;
@@ -34,6 +35,40 @@ public class TransactionUtils {
         }
     }
 
+    /**
+     * 根据操作类型判断是否是出库操作
+     *
+     * @param operationType 操作类型，1代表入库，0代表出库
+     * @return 是否是出库操作
+     */
+    public static boolean isCheckOut(String operationType) {
+        Assert.notNull(operationType, "操作类型不能为空");
+        if ("0".equals(operationType) || "出库".equals(operationType)) {
+            return true;
+        }
+
+        Assert.isTrue("1".equals(operationType) || "入库".equals(operationType), "操作类型不正确: " + operationType);
+        return false;
+    }
+
+    /**
+     * 转换Transaction对象为TransactionResultVO对象
+     *
+     * @param lineNo      明细行号
+     * @param transaction 出入库记录对象
+     * @return 出入库操作结果VO对象
+     */
+    public static TransactionResultVO convertToResultVO(int lineNo, Transaction transaction) {
+        TransactionResultVO vo = new TransactionResultVO();
+        vo.setLineNo(lineNo);
+        vo.setId(transaction.getId());
+        vo.setItemId(transaction.getItemId());
+        vo.setOperationType(transaction.getOperationType());
+        vo.setQuantity(transaction.getQuantity());
+        vo.setPostStock(transaction.getPostStock());
+        return vo;
+    }
+
     /**
      * 转换Transaction对象为TransactionVO对象
      *
@@ -0,0 +1,235 @@
+package redlib.backend.utils;
+
+import org.springframework.util.Assert;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 对象属性访问器
+ * 每个类只解析一次属性，getter、setter和无参构造方法通过LambdaMetafactory生成函数对象，
+ * 调用开销与直接调用方法相同，避免每次访问都创建PropertyDescriptor和反射调用。
+ * 类无法生成函数对象时（如类加载器不可见）退回到MethodHandle调用。
+ *
+ * @param <T> 对象类型
+ */
+public class BeanAccessor<T> {
+    private static final ClassValue<BeanAccessor<?>> CACHE = new ClassValue<>() {
+        @Override
+        protected BeanAccessor<?> computeValue(Class<?> type) {
+            return new BeanAccessor<>(type);
+        }
+    };
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Class<T> type;
+
+    private final Supplier<T> constructor;
+
+    private final Map<String, Property> properties;
+
+    @SuppressWarnings("unchecked")
+    private BeanAccessor(Class<T> type) {
+        this.type = type;
+        this.constructor = (Supplier<T>) constructorOf(type);
+        try {
+            Map<String, Property> map = new HashMap<>();
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+                if (descriptor.getPropertyType() == null || "class".equals(descriptor.getName())) {
+                    continue;
+                }
+
+                map.put(descriptor.getName(), new Property(descriptor.getName(), descriptor.getPropertyType(),
+                        getterOf(descriptor.getReadMethod()), setterOf(descriptor.getWriteMethod())));
+            }
+            this.properties = Collections.unmodifiableMap(map);
+        } catch (IntrospectionException ex) {
+            throw new RuntimeException("解析" + type.getName() + "的属性失败", ex);
+        }
+    }
+
+    /**
+     * 获取类的属性访问器，每个类只创建一次
+     *
+     * @param type 类
+     * @return 属性访问器
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanAccessor<T> of(Class<T> type) {
+        return (BeanAccessor<T>) CACHE.get(type);
+    }
+
+    /**
+     * 调用无参构造方法创建对象
+     *
+     * @return 新对象
+     */
+    public T newInstance() {
+        Assert.notNull(constructor, type.getName() + "没有公开的无参构造方法");
+        return constructor.get();
+    }
+
+    /**
+     * 获取属性
+     *
+     * @param name 属性名
+     * @return 属性，不存在时抛出异常
+     */
+    public Property property(String name) {
+        Property property = properties.get(name);
+        Assert.notNull(property, type.getName() + "没有属性" + name);
+        return property;
+    }
+
+    private static Supplier<?> constructorOf(Class<?> type) {
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.findConstructor(type, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            return null;
+        }
+
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), handle, MethodType.methodType(type));
+            return (Supplier<?>) site.getTarget().invoke();
+        } catch (Throwable ex) {
+            return () -> {
+                try {
+                    return handle.invoke();
+                } catch (Throwable e) {
+                    throw new RuntimeException("创建" + type.getName() + "对象失败", e);
+                }
+            };
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getterOf(Method method) {
+        if (method == null) {
+            return null;
+        }
+
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException ex) {
+            return null;
+        }
+
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class), handle, handle.type().wrap());
+            return (Function<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable ex) {
+            return object -> {
+                try {
+                    return handle.invoke(object);
+                } catch (Throwable e) {
+                    throw new RuntimeException("读取属性" + method.getName() + "失败", e);
+                }
+            };
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setterOf(Method method) {
+        if (method == null) {
+            return null;
+        }
+
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException ex) {
+            return null;
+        }
+
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle,
+                    handle.type().wrap().changeReturnType(void.class));
+            return (BiConsumer<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable ex) {
+            return (object, value) -> {
+                try {
+                    handle.invoke(object, value);
+                } catch (Throwable e) {
+                    throw new RuntimeException("写入属性" + method.getName() + "失败", e);
+                }
+            };
+        }
+    }
+
+    /**
+     * 属性
+     */
+    public static class Property {
+        private final String name;
+
+        private final Class<?> type;
+
+        private final Function<Object, Object> getter;
+
+        private final BiConsumer<Object, Object> setter;
+
+        Property(String name, Class<?> type, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+            this.name = name;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public boolean isReadable() {
+            return getter != null;
+        }
+
+        public boolean isWritable() {
+            return setter != null;
+        }
+
+        /**
+         * 读取属性值
+         *
+         * @param object 对象
+         * @return 属性值
+         */
+        public Object get(Object object) {
+            Assert.notNull(getter, "属性" + name + "不可读");
+            return getter.apply(object);
+        }
+
+        /**
+         * 写入属性值
+         *
+         * @param object 对象
+         * @param value  属性值，类型必须与属性类型一致
+         */
+        public void set(Object object, Object value) {
+            Assert.notNull(setter, "属性" + name + "不可写");
+            setter.accept(object, value);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package redlib.backend.utils;
+
+import org.springframework.util.Assert;
+import redlib.backend.model.PageCursor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 分页游标编解码工具，游标对客户端是不透明的字符串
+ */
+public class CursorUtils {
+    /**
+     * 把游标编码为字符串
+     *
+     * @param cursor 游标
+     * @return 编码后的字符串
+     */
+    public static String encode(PageCursor cursor) {
+        String text = (cursor.isBackward() ? "p" : "n") + ":" + cursor.getOperationTime().getTime() + ":" + cursor.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param text 编码后的字符串
+     * @return 游标
+     */
+    public static PageCursor decode(String text) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(text), StandardCharsets.UTF_8).split(":");
+            Assert.isTrue(parts.length == 3 && ("p".equals(parts[0]) || "n".equals(parts[0])), "无效的分页游标");
+            return new PageCursor("p".equals(parts[0]), new Date(Long.parseLong(parts[1])), Integer.valueOf(parts[2]));
+        } catch (IllegalArgumentException ex) {
+            // Base64格式错误和数字格式错误都是IllegalArgumentException
+            throw new IllegalArgumentException("无效的分页游标", ex);
+        }
+    }
+}
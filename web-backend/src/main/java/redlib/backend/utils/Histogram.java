@@ -0,0 +1,72 @@
+package redlib.backend.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 以2的幂为桶边界的简单直方图，线程安全，用于统计批量大小、耗时等分布
+ */
+public class Histogram {
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个非负值
+     *
+     * @param value 值
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+        counts.incrementAndGet(bucket);
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * 导出各桶的计数，键为桶的上界（包含），如"<=1"、"<=3"、"<=7"
+     *
+     * @return 桶上界到计数的映射，省略计数为0的桶
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts.get(i);
+            if (count > 0) {
+                map.put("<=" + (i == 0 ? 0 : (1L << i) - 1), count);
+            }
+        }
+
+        return map;
+    }
+}
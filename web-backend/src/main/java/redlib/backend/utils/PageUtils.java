@@ -5,6 +5,7 @@ import org.springframework.util.Assert;
 import redlib.backend.model.Page;
 
 import java.util.Collections;
+import java.util.List;
 
 /**
  * 描述：
@@ -51,7 +52,7 @@ public class PageUtils {
     private Integer offset;
 
     /**
-     * 取记录数
+     * 取记录数，总记录数未知时多取一条用于判断是否有下一页
      */
     private Integer limit;
 
@@ -75,6 +76,61 @@ public class PageUtils {
         limit = this.pageSize;
     }
 
+    /**
+     * 不统计总记录数的分页，total为-1
+     *
+     * @param page     页码
+     * @param pageSize 每页记录条数
+     */
+    public PageUtils(Integer page, Integer pageSize) {
+        if (page != null) {
+            this.current = page;
+        }
+
+        if (pageSize != null) {
+            this.pageSize = pageSize;
+        }
+
+        Assert.isTrue(this.current > 0, "page必须大于0");
+        Assert.isTrue(this.pageSize > 0, "pageSize必须大于0");
+
+        this.total = -1;
+        this.totalPages = -1;
+        offset = (this.current - 1) * this.pageSize;
+        limit = this.pageSize + 1;
+    }
+
+    /**
+     * 判断是否有下一页，总记录数未知时会去掉多取的一条记录
+     *
+     * @param list 按limit查询到的记录
+     * @return true表示有下一页
+     */
+    public boolean hasNext(List<?> list) {
+        if (total >= 0) {
+            return current < totalPages;
+        }
+
+        if (list.size() > pageSize) {
+            list.remove(list.size() - 1);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * 根据总记录数创建分页
+     *
+     * @param page     页码
+     * @param pageSize 每页记录条数
+     * @param total    总记录数，为null表示不统计总记录数
+     * @return 分页
+     */
+    public static PageUtils of(Integer page, Integer pageSize, Integer total) {
+        return total == null ? new PageUtils(page, pageSize) : new PageUtils(page, pageSize, total);
+    }
+
     /**
      * 页码初始化
      *
@@ -120,7 +176,12 @@ public class PageUtils {
      * @return true表示无数据, false表示有数据
      */
     public boolean isDataEmpty() {
-        if (total <= 0) {
+        if (total < 0) {
+            // 总记录数未知
+            return false;
+        }
+
+        if (total == 0) {
             return true;
         }
 
@@ -134,6 +195,8 @@ public class PageUtils {
      * @return 空分页数据
      */
     public <T> Page<T> getNullPage() {
-        return new Page<T>(current, pageSize, total, Collections.emptyList());
+        Page<T> page = new Page<T>(current, pageSize, total, Collections.emptyList());
+        page.setHasNext(false);
+        return page;
     }
 }
@@ -0,0 +1,200 @@
+package redlib.backend.utils;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 拼音工具
+ * 把名称拆成若干读音单元：汉字取其全部读音（不带声调，ü写作v），字母和数字取其小写形式，其余字符忽略。
+ * 用户输入可以是从某个单元开始的连续全拼（如shubiao、shub），也可以是连续首字母（如sb）。
+ */
+public class PinyinUtils {
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+
+    static {
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    /**
+     * 把名称拆成读音单元
+     *
+     * @param name 名称
+     * @return 读音单元列表
+     */
+    public static List<Unit> toUnits(String name) {
+        List<Unit> units = new ArrayList<>(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < 128) {
+                if (Character.isLetterOrDigit(c)) {
+                    units.add(new Unit(i, new String[]{String.valueOf(Character.toLowerCase(c))}));
+                }
+                continue;
+            }
+
+            String[] readings = readings(c);
+            if (readings != null) {
+                units.add(new Unit(i, readings));
+            }
+        }
+        return units;
+    }
+
+    /**
+     * 规范化用户输入：转小写，只保留字母和数字
+     *
+     * @param keyword 用户输入
+     * @return 规范化后的输入，可能为空字符串
+     */
+    public static String normalize(String keyword) {
+        StringBuilder builder = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = Character.toLowerCase(keyword.charAt(i));
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 计算从第start个单元开始能否匹配输入
+     *
+     * @param units 读音单元列表
+     * @param start 开始的单元
+     * @param query 规范化后的输入
+     * @return 匹配用到的单元数量，不能匹配时返回0
+     */
+    public static int matchLength(List<Unit> units, int start, String query) {
+        if (query.length() <= units.size() - start && matchInitials(units, start, query)) {
+            return query.length();
+        }
+        return matchFull(units, start, query, 0);
+    }
+
+    /**
+     * 查找输入在名称中匹配的位置，优先取最靠前的
+     *
+     * @param units 读音单元列表
+     * @param query 规范化后的输入
+     * @return 两个元素的数组：开始单元和单元数量，不能匹配时返回null
+     */
+    public static int[] find(List<Unit> units, String query) {
+        for (int start = 0; start < units.size(); start++) {
+            int length = matchLength(units, start, query);
+            if (length > 0) {
+                return new int[]{start, length};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 用&lt;em&gt;标出名称中匹配的字符
+     *
+     * @param name  名称
+     * @param units 名称的读音单元列表
+     * @param match {@link #find(List, String)}的返回值
+     * @return 标记后的名称
+     */
+    public static String highlight(String name, List<Unit> units, int[] match) {
+        int begin = units.get(match[0]).index;
+        int end = units.get(match[0] + match[1] - 1).index + 1;
+        return HtmlUtils.htmlEscape(name.substring(0, begin))
+                + "<em>" + HtmlUtils.htmlEscape(name.substring(begin, end)) + "</em>"
+                + HtmlUtils.htmlEscape(name.substring(end));
+    }
+
+    private static boolean matchInitials(List<Unit> units, int start, String query) {
+        for (int i = 0; i < query.length(); i++) {
+            if (!units.get(start + i).hasInitial(query.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按全拼匹配，最后一个单元允许只匹配读音的前缀
+     */
+    private static int matchFull(List<Unit> units, int index, String query, int offset) {
+        if (index >= units.size()) {
+            return 0;
+        }
+
+        for (String reading : units.get(index).readings) {
+            int remaining = query.length() - offset;
+            if (remaining <= reading.length()) {
+                if (reading.startsWith(query.substring(offset))) {
+                    return 1;
+                }
+            } else if (query.startsWith(reading, offset)) {
+                int length = matchFull(units, index + 1, query, offset + reading.length());
+                if (length > 0) {
+                    return length + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static String[] readings(char c) {
+        try {
+            String[] readings = PinyinHelper.toHanyuPinyinStringArray(c, FORMAT);
+            if (readings == null || readings.length == 0) {
+                return null;
+            }
+            return Arrays.stream(readings).distinct().toArray(String[]::new);
+        } catch (BadHanyuPinyinOutputFormatCombination ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * 读音单元
+     */
+    public static class Unit {
+        /**
+         * 在名称中的位置
+         */
+        private final int index;
+
+        /**
+         * 全部读音，多音字有多个
+         */
+        private final String[] readings;
+
+        Unit(int index, String[] readings) {
+            this.index = index;
+            this.readings = readings;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String[] getReadings() {
+            return readings;
+        }
+
+        private boolean hasInitial(char c) {
+            for (String reading : readings) {
+                if (reading.charAt(0) == c) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package redlib.backend.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.util.Assert;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 文本格式的逐行导出
+ * 每写入一个对象立即按列输出一行，不保留已写出的数据，每隔若干行刷新一次输出流，
+ * 响应未设置长度时以分块传输的方式边查询边发送。
+ * 支持CSV（带BOM，Excel可以直接打开）和NDJSON（每行一个JSON对象）两种格式。
+ */
+public abstract class RowWriter {
+    public static final String FORMAT_CSV = "csv";
+
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    /**
+     * 每写出多少行刷新一次输出流
+     */
+    private static final int FLUSH_ROWS = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * 属性名到列标题的映射
+     */
+    protected final Map<String, String> fieldMap;
+
+    private Class<?> objectClass;
+
+    /**
+     * 各列的属性访问器，按对象的类解析一次
+     */
+    protected BeanAccessor.Property[] columns;
+
+    private int pending;
+
+    private long count;
+
+    protected RowWriter(Map<String, String> fieldMap) {
+        this.fieldMap = fieldMap;
+    }
+
+    /**
+     * 创建指定格式的写出器
+     *
+     * @param format       格式，csv或ndjson
+     * @param outputStream 输出流，不会被关闭
+     * @param fieldMap     属性名到列标题的映射
+     * @return 写出器
+     */
+    public static RowWriter of(String format, OutputStream outputStream, Map<String, String> fieldMap) {
+        try {
+            if (FORMAT_CSV.equalsIgnoreCase(format)) {
+                return new CsvWriter(outputStream, fieldMap);
+            }
+            Assert.isTrue(FORMAT_NDJSON.equalsIgnoreCase(format), "不支持的导出格式: " + format);
+            return new NdjsonWriter(outputStream, fieldMap);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * 根据格式获取响应的内容类型
+     *
+     * @param format 格式，csv或ndjson
+     * @return 内容类型
+     */
+    public static String contentType(String format) {
+        if (FORMAT_CSV.equalsIgnoreCase(format)) {
+            return "text/csv;charset=UTF-8";
+        }
+        Assert.isTrue(FORMAT_NDJSON.equalsIgnoreCase(format), "不支持的导出格式: " + format);
+        return "application/x-ndjson;charset=UTF-8";
+    }
+
+    /**
+     * 写出一行
+     *
+     * @param object 数据对象
+     */
+    public void write(Object object) {
+        if (object.getClass() != objectClass) {
+            objectClass = object.getClass();
+            BeanAccessor<?> accessor = BeanAccessor.of(objectClass);
+            columns = fieldMap.keySet().stream().map(accessor::property).toArray(BeanAccessor.Property[]::new);
+        }
+
+        try {
+            writeRow(object);
+            count++;
+            if (++pending >= FLUSH_ROWS) {
+                flush();
+                pending = 0;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * 写出缓冲区中剩余的数据
+     */
+    public void finish() {
+        try {
+            flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * 已写出的行数
+     *
+     * @return 行数，不含标题行
+     */
+    public long getCount() {
+        return count;
+    }
+
+    protected abstract void writeRow(Object object) throws IOException;
+
+    protected abstract void flush() throws IOException;
+
+    protected static String format(Object value) {
+        return value instanceof Date date ? DATE_FORMATTER.format(date.toInstant()) : value.toString();
+    }
+
+    /**
+     * CSV格式，第一行为列标题，字段按RFC 4180转义
+     */
+    private static class CsvWriter extends RowWriter {
+        private final Writer writer;
+
+        CsvWriter(OutputStream outputStream, Map<String, String> fieldMap) throws IOException {
+            super(fieldMap);
+            writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writer.write('\uFEFF');
+            boolean first = true;
+            for (String title : fieldMap.values()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                writeField(title);
+                first = false;
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        protected void writeRow(Object object) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = columns[i].get(object);
+                if (value instanceof String text && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+                    // 防止文本被Excel当作公式执行
+                    writeField("'" + text);
+                } else if (value != null) {
+                    writeField(format(value));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String text) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                    quote = true;
+                    break;
+                }
+            }
+
+            if (!quote) {
+                writer.write(text);
+                return;
+            }
+
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        protected void flush() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * NDJSON格式，每行一个以属性名为键的JSON对象，空值输出为null
+     */
+    private static class NdjsonWriter extends RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream outputStream, Map<String, String> fieldMap) throws IOException {
+            super(fieldMap);
+            generator = JSON_FACTORY.createGenerator(new BufferedWriter(
+                    new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE));
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 不自动添加分隔符，每个对象之后写入换行
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        protected void writeRow(Object object) throws IOException {
+            generator.writeStartObject();
+            for (BeanAccessor.Property column : columns) {
+                Object value = column.get(object);
+                generator.writeFieldName(column.getName());
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Integer number) {
+                    generator.writeNumber(number);
+                } else if (value instanceof Long number) {
+                    generator.writeNumber(number);
+                } else {
+                    generator.writeString(format(value));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        protected void flush() throws IOException {
+            generator.flush();
+        }
+    }
+}
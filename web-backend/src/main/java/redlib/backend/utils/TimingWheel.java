@@ -0,0 +1,159 @@
+package redlib.backend.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 哈希时间轮定时器
+ * 定时任务按到期时间落入对应的槽位，工作线程每个刻度只处理一个槽位，
+ * 添加和取消都是O(1)，不需要定期扫描全部任务。精度为一个刻度。
+ */
+@Slf4j
+public class TimingWheel {
+    private final long tickNanos;
+
+    private final int mask;
+
+    private final LinkedList<Timeout>[] buckets;
+
+    /**
+     * 新添加的任务先放入该队列，由工作线程在下一个刻度放入槽位，槽位只由工作线程访问
+     */
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    private final Thread worker;
+
+    private final long startTime;
+
+    private volatile boolean running = true;
+
+    private long tick;
+
+    /**
+     * 创建时间轮并启动工作线程
+     *
+     * @param name          工作线程名称
+     * @param tickMillis    刻度（毫秒）
+     * @param ticksPerWheel 槽位数量，会向上取整为2的幂
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(String name, long tickMillis, int ticksPerWheel) {
+        int size = Integer.highestOneBit(Math.max(ticksPerWheel, 2) - 1) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.buckets = new LinkedList[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new LinkedList<>();
+        }
+
+        startTime = System.nanoTime();
+        worker = new Thread(this::workLoop, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 添加定时任务
+     *
+     * @param task        到期后执行的任务，在工作线程中执行，不能耗时太长
+     * @param delayMillis 延迟时间（毫秒）
+     * @return 定时任务，可用于取消
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        long deadline = System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0));
+        Timeout timeout = new Timeout(task, deadline);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 停止工作线程，未到期的任务不再执行
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void workLoop() {
+        while (running) {
+            long sleepNanos = startTime + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException ex) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            transferPending();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+
+            // 已经过期的任务放到当前槽位，本刻度就会执行
+            long ticks = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.remainingRounds = (ticks - tick) / buckets.length;
+            buckets[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expire(LinkedList<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                iterator.remove();
+                try {
+                    timeout.task.run();
+                } catch (Exception ex) {
+                    log.error("定时任务执行失败", ex);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    /**
+     * 定时任务
+     */
+    public static class Timeout {
+        private final Runnable task;
+
+        private final long deadline;
+
+        private long remainingRounds;
+
+        private volatile boolean cancelled;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务，已取消的任务在其槽位下次被处理时移除
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -1,21 +1,59 @@
 package redlib.backend.utils;
 
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
 import org.apache.poi.hssf.usermodel.*;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
-import java.beans.PropertyDescriptor;
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Method;
-import java.text.SimpleDateFormat;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 
 /**
  * @Description: Excel文件导入工具类
@@ -25,107 +63,193 @@ import java.util.function.Function;
 public class XlsUtils {
     public static final String EXCEL_TYPE_XLS = "xls";
     public static final String EXCEL_TYPE_XLSX = "xlsx";
+    public static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
 
 
+    /**
+     * 流式导出时内存中保留的行数，超出的行写入临时文件
+     */
+    private static final int STREAMING_WINDOW_SIZE = 100;
+
+    /**
+     * 日期的导出格式，线程安全，可以共用
+     */
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
     public static <T> Workbook exportToExcel(Function<Integer, List<T>> handler, Map<String, String> fieldMap) {
         try {
             HSSFWorkbook wb = new HSSFWorkbook();
             HSSFPalette palette = wb.getCustomPalette();
             palette.setColorAtIndex(IndexedColors.GREY_25_PERCENT.getIndex(), (byte) (0xE0), (byte) (0xE0), (byte) (0xE0));
-            // 创建Excel的工作sheet,对应到一个excel文档的tab
-            HSSFSheet sheet = wb.createSheet("data");
-            for (int i = 0; i < fieldMap.size(); i++) {
-                sheet.setColumnWidth(i, 3500);
-            }
+            fillWorkbook(wb, handler, fieldMap, SpreadsheetVersion.EXCEL97.getMaxRows());
+            return wb;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * 以xlsx格式流式导出，边查询边写入输出流
+     * 内存中只保留最近的若干行，其余的行压缩后写入临时文件，堆内存占用与导出行数无关；
+     * 超过单个工作表的最大行数时自动新建工作表。
+     *
+     * @param outputStream 输出流，不会被关闭
+     * @param handler      按页号（从1开始）返回数据，返回空列表表示结束
+     * @param fieldMap     属性名到列标题的映射
+     */
+    public static <T> void exportToExcel(OutputStream outputStream, Function<Integer, List<T>> handler, Map<String, String> fieldMap) {
+        SXSSFWorkbook wb = new SXSSFWorkbook(STREAMING_WINDOW_SIZE);
+        wb.setCompressTempFiles(true);
+        try {
+            fillWorkbook(wb, handler, fieldMap, SpreadsheetVersion.EXCEL2007.getMaxRows());
+            wb.write(outputStream);
+            outputStream.flush();
+        } catch (Exception ex) {
+            throw new RuntimeException("导出Excel失败", ex);
+        } finally {
+            // 删除临时文件
+            wb.dispose();
+        }
+    }
+
+    private static <T> void fillWorkbook(Workbook wb, Function<Integer, List<T>> handler, Map<String, String> fieldMap, int maxRows) throws Exception {
+        // 创建字体样式
+        Font fontHeader = wb.createFont();
+        fontHeader.setFontName("黑体");
+        fontHeader.setBold(true);
+        fontHeader.setFontHeightInPoints((short) 11);
+
+        // 创建Header单元格样式
+
+        CellStyle hdStyle = wb.createCellStyle();
+        hdStyle.setAlignment(HorizontalAlignment.CENTER);
+        hdStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+        hdStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        hdStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        hdStyle.setBorderBottom(BorderStyle.THIN);
+        hdStyle.setBorderLeft(BorderStyle.THIN);
+        hdStyle.setBorderRight(BorderStyle.THIN);
+        hdStyle.setBorderTop(BorderStyle.THIN);
+        hdStyle.setFont(fontHeader);
+
+        //创建一般单元格格式
+        CellStyle cellStyle = wb.createCellStyle();
+        cellStyle.setAlignment(HorizontalAlignment.CENTER);
+        cellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+        cellStyle.setFillForegroundColor(IndexedColors.WHITE.getIndex());
+        cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        cellStyle.setBorderBottom(BorderStyle.THIN);
+        cellStyle.setBorderLeft(BorderStyle.THIN);
+        cellStyle.setBorderRight(BorderStyle.THIN);
+        cellStyle.setBorderTop(BorderStyle.THIN);
+        Font fontCell = wb.createFont();
+        fontCell.setFontName("宋体");
+        fontCell.setBold(true);
+        fontCell.setFontHeightInPoints((short) 9);
+        cellStyle.setFont(fontCell);// 设置字体
+
+        Sheet sheet = createSheet(wb, hdStyle, fieldMap);
+        int page = 1;
+        int rowNumber = 1;
+        // 属性访问器按类解析一次，同一类的对象共用
+        Class<?> objectClass = null;
+        BeanAccessor.Property[] columns = null;
 
-            // 创建字体样式
-            HSSFFont fontHeader = wb.createFont();
-            fontHeader.setFontName("黑体");
-            fontHeader.setBold(true);
-            fontHeader.setFontHeightInPoints((short) 11);
-
-            // 创建Header单元格样式
-
-            HSSFCellStyle hdStyle = wb.createCellStyle();
-            hdStyle.setAlignment(HorizontalAlignment.CENTER);
-            hdStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-            hdStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            hdStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            hdStyle.setBorderBottom(BorderStyle.THIN);
-            hdStyle.setBorderLeft(BorderStyle.THIN);
-            hdStyle.setBorderRight(BorderStyle.THIN);
-            hdStyle.setBorderTop(BorderStyle.THIN);
-            hdStyle.setFont(fontHeader);
-
-            //创建一般单元格格式
-            HSSFCellStyle cellStyle = wb.createCellStyle();
-            cellStyle.setAlignment(HorizontalAlignment.CENTER);
-            cellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-            cellStyle.setFillForegroundColor(IndexedColors.WHITE.getIndex());
-            cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            cellStyle.setBorderBottom(BorderStyle.THIN);
-            cellStyle.setBorderLeft(BorderStyle.THIN);
-            cellStyle.setBorderRight(BorderStyle.THIN);
-            cellStyle.setBorderTop(BorderStyle.THIN);
-            HSSFFont fontCell = wb.createFont();
-            fontCell.setFontName("宋体");
-            fontCell.setBold(true);
-            fontCell.setFontHeightInPoints((short) 9);
-            cellStyle.setFont(fontCell);// 设置字体
-
-            // 创建Excel的sheet的一行
-            HSSFRow row = sheet.createRow(0);
-            row.setHeight((short) 500);// 设定行的高度
-            // 创建一个Excel的单元格
-            int cellIndex = 0;
-            for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
-                HSSFCell cell = row.createCell(cellIndex++);
-                cell.setCellStyle(hdStyle);
-                cell.setCellValue(entry.getValue());
+        while (true) {
+            List<T> list = handler.apply(page++);
+            if (CollectionUtils.isEmpty(list)) {
+                break;
             }
 
-            int page = 1;
-            int rowNumber = 1;
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            for (int i = 0; i < list.size(); i++) {
+                if (rowNumber >= maxRows) {
+                    // 当前工作表已满，后续数据写入新的工作表
+                    sheet = createSheet(wb, hdStyle, fieldMap);
+                    rowNumber = 1;
+                }
 
-            while (true) {
-                List<T> list = handler.apply(page++);
-                if (CollectionUtils.isEmpty(list)) {
-                    break;
+                T object = list.get(i);
+                if (object.getClass() != objectClass) {
+                    objectClass = object.getClass();
+                    columns = columnsOf(objectClass, fieldMap.keySet());
                 }
 
-                for (int i = 0; i < list.size(); i++) {
-                    T object = list.get(i);
-                    row = sheet.createRow(rowNumber);
-                    row.setHeight((short) 400);
-                    cellIndex = 0;
-                    for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
-                        HSSFCell cell = row.createCell(cellIndex++);
-                        cell.setCellStyle(cellStyle);
-                        cell.setCellType(CellType.STRING);
-                        Method getter = new PropertyDescriptor(entry.getKey(), object.getClass()).getReadMethod();
-                        Object o = getter.invoke(object);
-                        if (o != null) {
-                            if (o instanceof Date) {
-                                cell.setCellValue(sdf.format(o));
-                            } else {
-                                cell.setCellValue(o.toString());
-                            }
+                Row row = sheet.createRow(rowNumber);
+                row.setHeight((short) 400);
+                for (int j = 0; j < columns.length; j++) {
+                    Cell cell = row.createCell(j);
+                    cell.setCellStyle(cellStyle);
+                    Object o = columns[j].get(object);
+                    if (o != null) {
+                        if (o instanceof Date date) {
+                            cell.setCellValue(DATE_FORMATTER.format(date.toInstant()));
+                        } else {
+                            cell.setCellValue(o.toString());
                         }
                     }
-                    rowNumber++;
                 }
-
+                rowNumber++;
             }
-            return wb;
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
         }
     }
 
+    private static BeanAccessor.Property[] columnsOf(Class<?> cls, Collection<String> fieldNames) {
+        BeanAccessor<?> accessor = BeanAccessor.of(cls);
+        return fieldNames.stream().map(accessor::property).toArray(BeanAccessor.Property[]::new);
+    }
 
+    /**
+     * 创建工作表并写入标题行
+     */
+    private static Sheet createSheet(Workbook wb, CellStyle hdStyle, Map<String, String> fieldMap) {
+        // 创建Excel的工作sheet,对应到一个excel文档的tab
+        int index = wb.getNumberOfSheets();
+        Sheet sheet = wb.createSheet(index == 0 ? "data" : "data" + (index + 1));
+        for (int i = 0; i < fieldMap.size(); i++) {
+            sheet.setColumnWidth(i, 3500);
+        }
+
+        // 创建Excel的sheet的一行
+        Row row = sheet.createRow(0);
+        row.setHeight((short) 500);// 设定行的高度
+        // 创建一个Excel的单元格
+        int cellIndex = 0;
+        for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
+            Cell cell = row.createCell(cellIndex++);
+            cell.setCellStyle(hdStyle);
+            cell.setCellValue(entry.getValue());
+        }
+        return sheet;
+    }
+
+
+    /**
+     * 从Excel文件导入数据，逐行读取第一个工作表，第一行为列标题
+     * 上传内容先写入临时文件，xlsx使用SAX事件方式解析，xls使用记录事件方式解析，
+     * 每读完一行就转换为对象交给handler，不在内存中构建整个工作簿，内存占用与行数无关。
+     *
+     * @param inputStream 文件内容
+     * @param fileName    文件名，根据扩展名判断格式
+     * @param handler     每行数据的处理方法
+     * @param fieldMap    列标题到属性名的映射
+     * @param cls         数据对象的类
+     */
     public static <T> void importFromExcel(InputStream inputStream, String fileName, Consumer<T> handler, Map<String, String> fieldMap, Class<T> cls) throws Exception {
-        Workbook workbook = null;
+        importFromExcel(inputStream, fileName, (object, rowNum) -> handler.accept(object), fieldMap, cls);
+    }
+
+    /**
+     * 从Excel或CSV文件导入数据，第一行为列标题，每行数据连同行号交给handler，用于按行报告错误
+     * CSV文件按UTF-8读取，可以带BOM，格式与流式导出的CSV相同。
+     *
+     * @param inputStream 文件内容
+     * @param fileName    文件名，根据扩展名判断格式，支持xls、xlsx和csv
+     * @param handler     每行数据的处理方法，第二个参数为从1开始的行号，与Excel中显示的行号一致
+     * @param fieldMap    列标题到属性名的映射
+     * @param cls         数据对象的类
+     */
+    public static <T> void importFromExcel(InputStream inputStream, String fileName, ObjIntConsumer<T> handler, Map<String, String> fieldMap, Class<T> cls) throws Exception {
         String extension = "";
 
         int dotIndex = fileName.lastIndexOf('.');
@@ -133,71 +257,280 @@ public class XlsUtils {
             extension = fileName.substring(dotIndex + 1);
         }
 
-        if ("xls".equals(extension)) {
-            workbook = new HSSFWorkbook(inputStream);
-        } else if ("xlsx".equalsIgnoreCase(extension)) {
-            workbook = new XSSFWorkbook(inputStream);
-        } else {
+        if (RowWriter.FORMAT_CSV.equalsIgnoreCase(extension)) {
+            RowImporter<T> importer = new RowImporter<>(handler, fieldMap, cls);
+            readCsv(inputStream, importer);
+            Assert.isTrue(importer.hasHeader(), "文件内无数据可以读。");
+            return;
+        }
+
+        boolean xls = EXCEL_TYPE_XLS.equals(extension);
+        if (!xls && !EXCEL_TYPE_XLSX.equalsIgnoreCase(extension)) {
             throw new RuntimeException("文件格式不正确，无法读取。");
         }
 
-        DataFormatter dataFormatter = new DataFormatter();
-        FormulaEvaluator formulaEvaluator = workbook.getCreationHelper().createFormulaEvaluator();
-
-        //取得excel文件的第一个工作表
-        Sheet sheet = workbook.getSheetAt(0);
-        int firstRowNumber = sheet.getFirstRowNum();
-        int lastRowNumber = sheet.getLastRowNum();
-        Assert.isTrue(firstRowNumber >= 0 && lastRowNumber >= 0, "Excel文件内无数据可以读。");
-        Row row = sheet.getRow(firstRowNumber);
-        Map<Integer, String> fieldCellIndexMap = new HashMap<>();
-        for (int i = row.getFirstCellNum(); i <= row.getLastCellNum(); i++) {
-            Cell cell = row.getCell(i);
-            if (cell == null) {
-                continue;
+        // POI从文件读取时按需读取各部分，从输入流读取则会把整个文件读入内存
+        Path file = Files.createTempFile("import", "." + extension);
+        try {
+            Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+            RowImporter<T> importer = new RowImporter<>(handler, fieldMap, cls);
+            if (xls) {
+                readXls(file, importer);
+            } else {
+                readXlsx(file, importer);
             }
+            Assert.isTrue(importer.hasHeader(), "Excel文件内无数据可以读。");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void readXlsx(Path file, RowImporter<?> importer) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            Assert.isTrue(sheets.hasNext(), "Excel文件内无数据可以读。");
+
+            Map<Integer, String> cells = new HashMap<>();
+            SheetContentsHandler contentsHandler = new SheetContentsHandler() {
+                private int column;
 
-            String name = fieldMap.get(cell.toString());
-            if (name != null) {
-                fieldCellIndexMap.put(i, name);
+                @Override
+                public void startRow(int rowNum) {
+                    cells.clear();
+                    column = -1;
+                }
+
+                @Override
+                public void endRow(int rowNum) {
+                    importer.row(rowNum + 1, cells);
+                }
+
+                @Override
+                public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+                    column = cellReference == null ? column + 1 : new CellReference(cellReference).getCol();
+                    cells.put(column, formattedValue);
+                }
+            };
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), null,
+                        new ReadOnlySharedStringsTable(pkg), contentsHandler, new ImportDataFormatter(), false));
+                parser.parse(new InputSource(sheet));
             }
         }
+    }
 
-        for (int i = firstRowNumber + 1; i <= lastRowNumber; i++) {
-            row = sheet.getRow(i);
-            if (row == null) {
-                continue;
-            }
+    private static void readXls(Path file, RowImporter<?> importer) throws Exception {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file.toFile(), true)) {
+            DataFormatter formatter = new ImportDataFormatter();
+            Map<Integer, String> cells = new HashMap<>();
+            HSSFListener[] holder = new HSSFListener[1];
+            HSSFListener listener = new HSSFListener() {
+                private SSTRecord sst;
 
-            T object = cls.newInstance();
-            for (int j = row.getFirstCellNum(); j <= row.getLastCellNum(); j++) {
-                Cell cell = row.getCell(j);
-                if (cell == null) {
-                    continue;
+                private int sheetIndex = -1;
+
+                /**
+                 * 结果为文本的公式，其值在随后的StringRecord中
+                 */
+                private int formulaColumn = -1;
+
+                @Override
+                public void processRecord(org.apache.poi.hssf.record.Record record) {
+                    if (record instanceof BOFRecord bof) {
+                        if (bof.getType() == BOFRecord.TYPE_WORKSHEET) {
+                            sheetIndex++;
+                        }
+                        return;
+                    }
+                    if (record instanceof SSTRecord sstRecord) {
+                        sst = sstRecord;
+                        return;
+                    }
+                    // 只读取第一个工作表
+                    if (sheetIndex != 0) {
+                        return;
+                    }
+
+                    FormatTrackingHSSFListener formats = (FormatTrackingHSSFListener) holder[0];
+                    if (record instanceof LabelSSTRecord label) {
+                        cells.put((int) label.getColumn(), sst.getString(label.getSSTIndex()).getString());
+                    } else if (record instanceof LabelRecord label) {
+                        cells.put((int) label.getColumn(), label.getValue());
+                    } else if (record instanceof NumberRecord number) {
+                        cells.put((int) number.getColumn(), formatter.formatRawCellContents(number.getValue(),
+                                formats.getFormatIndex(number), formats.getFormatString(number)));
+                    } else if (record instanceof BoolErrRecord boolErr && boolErr.isBoolean()) {
+                        cells.put((int) boolErr.getColumn(), boolErr.getBooleanValue() ? "TRUE" : "FALSE");
+                    } else if (record instanceof FormulaRecord formula) {
+                        if (formula.hasCachedResultString()) {
+                            formulaColumn = formula.getColumn();
+                        } else if (formula.getCachedResultTypeEnum() == CellType.NUMERIC) {
+                            cells.put((int) formula.getColumn(), formatter.formatRawCellContents(formula.getValue(),
+                                    formats.getFormatIndex(formula), formats.getFormatString(formula)));
+                        }
+                    } else if (record instanceof StringRecord string && formulaColumn >= 0) {
+                        cells.put(formulaColumn, string.getString());
+                        formulaColumn = -1;
+                    } else if (record instanceof LastCellOfRowDummyRecord last) {
+                        if (!cells.isEmpty()) {
+                            importer.row(last.getRow() + 1, cells);
+                            cells.clear();
+                        }
+                    }
+                }
+            };
+
+            holder[0] = new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(listener));
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(holder[0]);
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        }
+    }
+
+    /**
+     * 按RFC 4180读取CSV，带引号的字段可以包含逗号、引号和换行
+     */
+    private static void readCsv(InputStream inputStream, RowImporter<?> importer) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        Map<Integer, String> cells = new HashMap<>();
+        StringBuilder field = new StringBuilder();
+        int rowNum = 1;
+        int column = 0;
+        boolean quoted = false;
+        int c = reader.read();
+        if (c == '\uFEFF') {
+            c = reader.read();
+        }
+        while (c >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
                 }
-                String fieldName = fieldCellIndexMap.get(j);
-                if (fieldName == null) {
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                putCsvField(cells, column++, field);
+            } else if (c == '\r' || c == '\n') {
+                putCsvField(cells, column, field);
+                if (!cells.isEmpty()) {
+                    importer.row(rowNum, cells);
+                }
+                rowNum++;
+                cells.clear();
+                column = 0;
+                if (c == '\r') {
+                    // \r\n作为一个行结束
+                    c = reader.read();
+                    if (c == '\n') {
+                        c = reader.read();
+                    }
                     continue;
                 }
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
 
+        putCsvField(cells, column, field);
+        if (!cells.isEmpty()) {
+            importer.row(rowNum, cells);
+        }
+    }
 
-                Method setter = new PropertyDescriptor(fieldName, object.getClass()).getWriteMethod();
-                Class<?>[] paramTypes = setter.getParameterTypes();
-                if (paramTypes.length != 1) {
+    private static void putCsvField(Map<Integer, String> cells, int column, StringBuilder field) {
+        if (!field.isEmpty()) {
+            String value = field.toString();
+            // 导出时为防止公式执行加的单引号，导入时去掉
+            if (value.length() > 1 && value.charAt(0) == '\'' && "=+-@".indexOf(value.charAt(1)) >= 0) {
+                value = value.substring(1);
+            }
+            cells.put(column, value);
+        }
+        field.setLength(0);
+    }
+
+    /**
+     * 日期单元格统一格式化为导出时的日期格式，以便解析到Date属性
+     */
+    private static class ImportDataFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DATE_FORMATTER.format(DateUtil.getJavaDate(value, use1904Windowing).toInstant());
+            }
+            return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+        }
+    }
+
+    /**
+     * 把一行单元格的值转换为对象，第一行作为标题行确定各列对应的属性
+     */
+    private static class RowImporter<T> {
+        private final ObjIntConsumer<T> handler;
+
+        private final Map<String, String> fieldMap;
+
+        private final BeanAccessor<T> accessor;
+
+        private Map<Integer, BeanAccessor.Property> columns;
+
+        RowImporter(ObjIntConsumer<T> handler, Map<String, String> fieldMap, Class<T> cls) {
+            this.handler = handler;
+            this.fieldMap = fieldMap;
+            this.accessor = BeanAccessor.of(cls);
+        }
+
+        boolean hasHeader() {
+            return columns != null;
+        }
+
+        void row(int rowNum, Map<Integer, String> cells) {
+            if (cells.isEmpty()) {
+                // 只有格式没有内容的行
+                return;
+            }
+            if (columns == null) {
+                columns = new HashMap<>();
+                for (Map.Entry<Integer, String> entry : cells.entrySet()) {
+                    String name = fieldMap.get(entry.getValue());
+                    if (name != null && accessor.property(name).isWritable()) {
+                        columns.put(entry.getKey(), accessor.property(name));
+                    }
+                }
+                return;
+            }
+
+            T object = accessor.newInstance();
+            for (Map.Entry<Integer, String> entry : cells.entrySet()) {
+                BeanAccessor.Property property = columns.get(entry.getKey());
+                if (property == null) {
                     continue;
                 }
 
-                String cellValue = dataFormatter.formatCellValue(cell, formulaEvaluator);
-                if (paramTypes[0] == String.class) {
-                    setter.invoke(object, cellValue);
-                } else if (paramTypes[0] == Integer.class) {
-                    setter.invoke(object, Integer.parseInt(cellValue));
-                } else if (paramTypes[0] == Date.class) {
-                    setter.invoke(object, cellValue);
+                String cellValue = entry.getValue();
+                if (cellValue.isEmpty()) {
+                    continue;
+                }
+                if (property.getType() == String.class) {
+                    property.set(object, cellValue);
+                } else if (property.getType() == Integer.class) {
+                    property.set(object, Integer.parseInt(cellValue));
+                } else if (property.getType() == Date.class) {
+                    // 日期单元格已格式化为导出时的格式，文本单元格也按该格式解析
+                    property.set(object, Date.from(DATE_FORMATTER.parse(cellValue, Instant::from)));
                 }
             }
 
-            handler.accept(object);
+            handler.accept(object, rowNum);
         }
     }
 }
@@ -0,0 +1,44 @@
+package redlib.backend.vo;
+
+import lombok.Data;
+
+/**
+ * 缓存统计视图对象
+ */
+@Data
+public class CacheStatsVO {
+    /**
+     * 当前缓存条目数（估算）
+     */
+    private Long size;
+
+    /**
+     * 命中次数
+     */
+    private Long hitCount;
+
+    /**
+     * 未命中次数
+     */
+    private Long missCount;
+
+    /**
+     * 命中率
+     */
+    private Double hitRate;
+
+    /**
+     * 从数据库加载的次数
+     */
+    private Long loadCount;
+
+    /**
+     * 因容量或过期被淘汰的条目数
+     */
+    private Long evictionCount;
+
+    /**
+     * 主动失效的次数
+     */
+    private Long invalidationCount;
+}
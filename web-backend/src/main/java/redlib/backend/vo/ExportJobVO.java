@@ -0,0 +1,66 @@
+package redlib.backend.vo;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 导出任务视图对象
+ */
+@Data
+public class ExportJobVO {
+    /**
+     * 任务ID
+     */
+    private String id;
+
+    /**
+     * 导出内容，如item、department
+     */
+    private String type;
+
+    /**
+     * 结果文件名
+     */
+    private String fileName;
+
+    /**
+     * 状态：QUEUED排队中，RUNNING执行中，DONE已完成，FAILED失败
+     */
+    private String status;
+
+    /**
+     * 总行数，未知时为-1
+     */
+    private Long total;
+
+    /**
+     * 已写出的行数
+     */
+    private Long processed;
+
+    /**
+     * 结果文件大小（字节），完成后才有值
+     */
+    private Long size;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 提交时间
+     */
+    private Date createdAt;
+
+    /**
+     * 完成时间
+     */
+    private Date finishedAt;
+
+    /**
+     * 结果过期时间，过期后文件被删除，完成后才有值
+     */
+    private Date expireAt;
+}
@@ -0,0 +1,56 @@
+package redlib.backend.vo;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 出入库记录合并提交统计视图对象
+ */
+@Data
+public class GroupCommitStatsVO {
+    /**
+     * 是否开启了合并提交
+     */
+    private Boolean enabled;
+
+    /**
+     * 已提交的批次数
+     */
+    private Long batchCount;
+
+    /**
+     * 已提交的记录数
+     */
+    private Long recordCount;
+
+    /**
+     * 平均批量大小
+     */
+    private Double meanBatchSize;
+
+    /**
+     * 批量大小分布，键为桶上界
+     */
+    private Map<String, Long> batchSizeHistogram;
+
+    /**
+     * 平均提交耗时（毫秒）
+     */
+    private Double meanCommitMillis;
+
+    /**
+     * 最大提交耗时（毫秒）
+     */
+    private Long maxCommitMillis;
+
+    /**
+     * 提交耗时分布（毫秒），键为桶上界
+     */
+    private Map<String, Long> commitLatencyHistogram;
+
+    /**
+     * 当前排队等待提交的记录数
+     */
+    private Integer pendingCount;
+}
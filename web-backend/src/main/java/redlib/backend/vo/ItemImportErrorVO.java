@@ -0,0 +1,24 @@
+package redlib.backend.vo;
+
+import lombok.Data;
+
+/**
+ * 物品导入失败的行
+ */
+@Data
+public class ItemImportErrorVO {
+    /**
+     * 行号，与Excel中显示的行号一致
+     */
+    private Integer rowNum;
+
+    /**
+     * 物品编号
+     */
+    private String itemNumber;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+}
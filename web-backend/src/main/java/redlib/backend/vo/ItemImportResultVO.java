@@ -0,0 +1,31 @@
+package redlib.backend.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 物品批量导入结果
+ */
+@Data
+public class ItemImportResultVO {
+    /**
+     * 文件中的数据行数
+     */
+    private Integer total;
+
+    /**
+     * 成功导入的行数
+     */
+    private Integer successCount;
+
+    /**
+     * 失败的行数
+     */
+    private Integer failedCount;
+
+    /**
+     * 失败的行，按行号排列，最多返回前1000行
+     */
+    private List<ItemImportErrorVO> errors;
+}
@@ -0,0 +1,41 @@
+package redlib.backend.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 物品搜索结果
+ */
+@Data
+public class ItemSearchVO {
+    /**
+     * 物品ID
+     */
+    private Integer itemId;
+
+    /**
+     * 物品名称
+     */
+    private String name;
+
+    /**
+     * 物品编号
+     */
+    private String itemNumber;
+
+    /**
+     * 当前库存
+     */
+    private Integer stockQuantity;
+
+    /**
+     * 相关度得分
+     */
+    private Double score;
+
+    /**
+     * 用&lt;em&gt;标出命中部分的名称和编号
+     */
+    private List<String> highlights;
+}
@@ -0,0 +1,34 @@
+package redlib.backend.vo;
+
+import lombok.Data;
+
+/**
+ * 物品输入联想结果
+ */
+@Data
+public class ItemSuggestVO {
+    /**
+     * 物品ID
+     */
+    private Integer itemId;
+
+    /**
+     * 物品编号
+     */
+    private String itemNumber;
+
+    /**
+     * 物品名称
+     */
+    private String name;
+
+    /**
+     * 单位
+     */
+    private String unit;
+
+    /**
+     * 当前库存
+     */
+    private Integer stockQuantity;
+}
@@ -0,0 +1,46 @@
+package redlib.backend.vo;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 库存预留视图对象
+ */
+@Data
+public class ReservationVO {
+    /**
+     * 预留ID
+     */
+    private Long id;
+
+    /**
+     * 物品ID
+     */
+    private Integer itemId;
+
+    /**
+     * 预留数量
+     */
+    private Integer quantity;
+
+    /**
+     * 预留人ID
+     */
+    private Integer userId;
+
+    /**
+     * 备注
+     */
+    private String remark;
+
+    /**
+     * 创建时间
+     */
+    private Date createdAt;
+
+    /**
+     * 过期时间
+     */
+    private Date expireAt;
+}
@@ -0,0 +1,29 @@
+package redlib.backend.vo;
+
+import lombok.Data;
+
+/**
+ * 物品可用库存视图对象
+ */
+@Data
+public class StockAvailabilityVO {
+    /**
+     * 物品ID
+     */
+    private Integer itemId;
+
+    /**
+     * 当前库存
+     */
+    private Integer stockQuantity;
+
+    /**
+     * 已预留数量
+     */
+    private Integer reserved;
+
+    /**
+     * 可用库存，即当前库存减去已预留数量
+     */
+    private Integer available;
+}
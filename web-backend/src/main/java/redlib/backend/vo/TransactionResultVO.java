@@ -0,0 +1,39 @@
+package redlib.backend.vo;
+
+import lombok.Data;
+
+/**
+ * 出入库操作结果视图对象
+ */
+@Data
+public class TransactionResultVO {
+    /**
+     * 明细行号，从1开始
+     */
+    private Integer lineNo;
+
+    /**
+     * 出入库记录ID
+     */
+    private Integer id;
+
+    /**
+     * 物品ID
+     */
+    private Integer itemId;
+
+    /**
+     * 操作类型，1代表入库，0代表出库
+     */
+    private String operationType;
+
+    /**
+     * 操作数量
+     */
+    private Integer quantity;
+
+    /**
+     * 操作后库存
+     */
+    private Integer postStock;
+}
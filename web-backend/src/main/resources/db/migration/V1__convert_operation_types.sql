@@ -0,0 +1,5 @@
+-- 早期版本的操作类型以文本保存，转换为数字：1代表入库，0代表出库
+-- 先转为字符再比较，operation_type已是数字类型时'入库'会被当作0比较，误改全部出库记录
+UPDATE transactions
+SET operation_type = CASE CAST(operation_type AS CHAR(10)) WHEN '入库' THEN '1' ELSE '0' END
+WHERE CAST(operation_type AS CHAR(10)) IN ('入库', '出库');
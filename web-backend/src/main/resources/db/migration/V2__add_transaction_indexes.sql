@@ -0,0 +1,5 @@
+-- 出入库记录按时间倒序分页，游标分页按(operation_time, id)定位，按时间范围查询也使用该索引
+CREATE INDEX idx_transactions_time_id ON transactions (operation_time, id);
+
+-- 按物品查询出入库记录并按时间排序
+CREATE INDEX idx_transactions_item_time ON transactions (item_id, operation_time);
@@ -0,0 +1,6 @@
+-- 物品编号唯一，替换原来的普通索引
+-- 已有重复编号时不执行，启动失败并列出重复的编号，需先处理重复数据
+-- check-empty: SELECT item_number, COUNT(*) AS count FROM items GROUP BY item_number HAVING COUNT(*) > 1 LIMIT 20
+-- MySQL的DDL不在事务中，先建唯一索引，成功后再删除旧索引，建索引失败时旧索引仍在
+CREATE UNIQUE INDEX uk_items_item_number ON items (item_number);
+ALTER TABLE items DROP INDEX idx_items_item_number;
@@ -0,0 +1,14 @@
+package redlib.backend;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 开启热点合并后的并发出库测试，所有线程操作同一物品，并发线程数远大于连接池大小；
+ * 执行者提交后必须使物品缓存失效，继承的testItemCacheAfterCheckOut检查出库返回后缓存中的库存
+ */
+@SpringBootTest(properties = {
+        "warehouse.coalesce.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=4"
+})
+class CoalesceConcurrencyTests extends TransactionConcurrencyTests {
+}
@@ -0,0 +1,15 @@
+package redlib.backend;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 开启合并提交后的并发出库测试，并发线程数远大于连接池大小，
+ * 请求线程不能占着连接等待写线程，否则写线程拿不到连接，全部请求超时；
+ * 写线程提交后必须使物品缓存失效，继承的testItemCacheAfterCheckOut检查出库返回后缓存中的库存
+ */
+@SpringBootTest(properties = {
+        "warehouse.group-commit.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=4"
+})
+class GroupCommitConcurrencyTests extends TransactionConcurrencyTests {
+}
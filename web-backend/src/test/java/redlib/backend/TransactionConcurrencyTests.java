@@ -0,0 +1,147 @@
+package redlib.backend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import redlib.backend.cache.ItemCache;
+import redlib.backend.dao.ItemMapper;
+import redlib.backend.dao.TransactionMapper;
+import redlib.backend.dto.TransactionDTO;
+import redlib.backend.model.Item;
+import redlib.backend.model.Token;
+import redlib.backend.model.Transaction;
+import redlib.backend.service.TransactionService;
+import redlib.backend.utils.ThreadContextHolder;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 并发出库测试：多个线程同时对同一物品出库，库存不能为负，操作后库存必须连续递减；
+ * 出库返回后从物品缓存读到的必须是提交后的库存
+ */
+@SpringBootTest
+@Slf4j
+class TransactionConcurrencyTests {
+    private static final int INITIAL_STOCK = 100;
+    private static final int THREADS = 32;
+    private static final int OPERATIONS_PER_THREAD = 10;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ItemMapper itemMapper;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        item = new Item();
+        item.setName("并发测试物品");
+        item.setItemNumber("CONCURRENCY-" + System.nanoTime());
+        item.setUnit("个");
+        item.setSpecification("测试");
+        item.setStockQuantity(0);
+        item.setThreshold(0);
+        item.setCreatedAt(new Date());
+        item.setUpdatedAt(new Date());
+        itemMapper.insert(item);
+        itemMapper.updateStock(item.getId(), INITIAL_STOCK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        itemMapper.deleteByIds(Collections.singletonList(item.getId()));
+    }
+
+    @Test
+    void testConcurrentCheckOut() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                ThreadContextHolder.setToken(new Token());
+                start.await();
+                for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                    TransactionDTO dto = new TransactionDTO();
+                    dto.setItemId(item.getId());
+                    dto.setQuantity(1);
+                    try {
+                        transactionService.checkOut(dto);
+                        succeeded.incrementAndGet();
+                    } catch (IllegalArgumentException ex) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(INITIAL_STOCK, succeeded.get());
+        assertEquals(THREADS * OPERATIONS_PER_THREAD - INITIAL_STOCK, rejected.get());
+        assertEquals(0, itemMapper.selectByPrimaryKey(item.getId()).getStockQuantity());
+
+        // 每次成功出库的操作后库存必须恰好是 99, 98, ..., 0 各出现一次
+        List<Integer> postStocks = transactionMapper.listByItemId(item.getId()).stream()
+                .map(Transaction::getPostStock)
+                .sorted(Collections.reverseOrder())
+                .collect(Collectors.toList());
+        assertEquals(INITIAL_STOCK, postStocks.size());
+        for (int i = 0; i < INITIAL_STOCK; i++) {
+            assertEquals(INITIAL_STOCK - 1 - i, postStocks.get(i));
+        }
+    }
+
+    @Test
+    void testItemCacheAfterCheckOut() throws Exception {
+        // 出库期间另一个线程不断读取缓存，提交前读到的旧库存不能在出库返回后还留在缓存中
+        AtomicBoolean reading = new AtomicBoolean(true);
+        Thread reader = new Thread(() -> {
+            while (reading.get()) {
+                itemCache.getById(item.getId());
+            }
+        });
+        reader.start();
+        try {
+            ThreadContextHolder.setToken(new Token());
+            for (int i = 1; i <= 20; i++) {
+                TransactionDTO dto = new TransactionDTO();
+                dto.setItemId(item.getId());
+                dto.setQuantity(1);
+                transactionService.checkOut(dto);
+                assertEquals(INITIAL_STOCK - i, itemCache.getById(item.getId()).getStockQuantity());
+            }
+        } finally {
+            reading.set(false);
+            reader.join();
+        }
+    }
+}
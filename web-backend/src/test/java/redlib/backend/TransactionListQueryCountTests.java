@@ -0,0 +1,129 @@
+package redlib.backend;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import redlib.backend.dao.ItemMapper;
+import redlib.backend.dao.TransactionMapper;
+import redlib.backend.dto.query.TransactionQueryDTO;
+import redlib.backend.model.Item;
+import redlib.backend.model.Page;
+import redlib.backend.model.Transaction;
+import redlib.backend.service.TransactionService;
+import redlib.backend.vo.TransactionVO;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 出入库记录分页查询的SQL语句数量测试：每页执行的语句数与每页记录数无关
+ */
+@SpringBootTest
+@Import(TransactionListQueryCountTests.StatementCounterConfig.class)
+class TransactionListQueryCountTests {
+    private static final int ITEM_COUNT = 100;
+
+    private static final AtomicInteger STATEMENTS = new AtomicInteger();
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ItemMapper itemMapper;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    private final List<Integer> itemIds = new ArrayList<>();
+
+    private String prefix;
+
+    @BeforeEach
+    void setUp() {
+        // 每条记录对应不同的物品，逐条查询物品时语句数会随每页记录数增长
+        prefix = "QUERYCOUNT-" + System.nanoTime() + "-";
+        List<Transaction> records = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            Item item = new Item();
+            item.setName("语句数测试物品" + i);
+            item.setItemNumber(prefix + i);
+            item.setUnit("个");
+            item.setSpecification("测试");
+            item.setStockQuantity(1);
+            item.setThreshold(0);
+            item.setCreatedAt(new Date());
+            item.setUpdatedAt(new Date());
+            itemMapper.insert(item);
+            itemIds.add(item.getId());
+
+            Transaction transaction = new Transaction();
+            transaction.setItemId(item.getId());
+            transaction.setOperationType("1");
+            transaction.setQuantity(1);
+            transaction.setPostStock(1);
+            transaction.setOperationTime(new Date());
+            records.add(transaction);
+        }
+        transactionMapper.insertBatch(records);
+    }
+
+    @AfterEach
+    void tearDown() {
+        itemMapper.deleteByIds(itemIds);
+    }
+
+    @Test
+    void testStatementCountIndependentOfPageSize() {
+        int smallPage = countStatements(10);
+        int largePage = countStatements(ITEM_COUNT);
+        assertEquals(smallPage, largePage);
+    }
+
+    private int countStatements(int pageSize) {
+        TransactionQueryDTO queryDTO = new TransactionQueryDTO();
+        queryDTO.setItemNumber(prefix);
+        queryDTO.setCurrent(1);
+        queryDTO.setPageSize(pageSize);
+
+        STATEMENTS.set(0);
+        Page<TransactionVO> page = transactionService.listByPage(queryDTO);
+        assertEquals(pageSize, page.getList().size());
+        page.getList().forEach(vo -> assertEquals(prefix, vo.getItemNumber().substring(0, prefix.length())));
+        return STATEMENTS.get();
+    }
+
+    @TestConfiguration
+    static class StatementCounterConfig {
+        @Bean
+        Interceptor statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    /**
+     * 统计实际发送到数据库的语句数
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+    static class StatementCounter implements Interceptor {
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            STATEMENTS.incrementAndGet();
+            return invocation.proceed();
+        }
+    }
+}
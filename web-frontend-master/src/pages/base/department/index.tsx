@@ -93,7 +93,7 @@ export default () => {
   // 导出部门数据的处理函数
   const handleExport = () => {
     setDownloading(true); // 设置导出按钮为加载状态
-    downloadFile(`/api/department/exportDepartment`, searchProps, '部门导出表.xls').then(() => {
+    downloadFile(`/api/department/exportDepartment`, searchProps, '部门导出表.xlsx').then(() => {
       // 调用文件下载工具函数
       waitTime(1000).then(() => setDownloading(false)); // 延迟1秒后取消加载状态
     });
@@ -213,7 +213,7 @@ export default () => {
   // 导出物品数据
   const handleExport = () => {
     setDownloading(true);
-    downloadFile(`/api/item/exportItem`, searchProps, '物品导出表.xls').then(() => {
+    downloadFile(`/api/item/exportItem`, searchProps, '物品导出表.xlsx').then(() => {
       waitTime(1000).then(() => setDownloading(false));
     });
   };